@@ -0,0 +1,171 @@
+/*
+ * LicenseBundleWriter.java from LicenseManager modified Monday, October 19, 2026 14:37:52 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing.licensor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ro.esolutions.licensing.BundleLicenseProvider;
+import ro.esolutions.licensing.LicenseBundle;
+import ro.esolutions.licensing.SignedLicense;
+import ro.esolutions.licensing.SignedLicenseCodec;
+import ro.esolutions.licensing.exception.ObjectSerializationException;
+
+/**
+ * Writes {@link LicenseBundle license bundles}, which hold the signed licenses of many contexts in one file for the
+ * {@link BundleLicenseProvider}. Add the license of each context, then {@link #write(File) write} the bundle. The
+ * bundle is written to a temporary file next to the target and then moved over it, so that providers mapping the
+ * previous bundle keep a consistent view until they are {@link BundleLicenseProvider#reload() reloaded}.<br>
+ * <br>
+ * This class is not thread-safe.
+ *
+ * @since 1.0.4
+ */
+public final class LicenseBundleWriter {
+    private final List<byte[]> keys = new ArrayList<>();
+
+    private final List<byte[]> licenses = new ArrayList<>();
+
+    private final Set<String> contexts = new HashSet<>();
+
+    /**
+     * Adds a signed license to the bundle. The license is stored in the framed format of {@link SignedLicenseCodec}.
+     *
+     * @param context       The context of the license, whose {@link Object#toString()} is its key in the bundle
+     * @param signedLicense The signed license
+     * @return this writer, for chaining.
+     */
+    public LicenseBundleWriter add(final Object context, final SignedLicense signedLicense) {
+        if (signedLicense == null) {
+            throw new IllegalArgumentException("Parameter signedLicense must not be null.");
+        }
+        return this.add(context, SignedLicenseCodec.encode(signedLicense));
+    }
+
+    /**
+     * Adds stored license data to the bundle, such as the output of
+     * {@link LicenseCreator#signAndSerializeLicense(ro.esolutions.licensing.License)} or the contents of a license
+     * file. Base64-encoded data must be decoded first.
+     *
+     * @param context     The context of the license, whose {@link Object#toString()} is its key in the bundle
+     * @param licenseData The signed and serialized license
+     * @return this writer, for chaining.
+     * @throws IllegalArgumentException if the bundle already holds a license for the context or holds
+     *                                  {@link LicenseBundle#MAXIMUM_ENTRY_COUNT} licenses.
+     */
+    public LicenseBundleWriter add(final Object context, final byte[] licenseData) {
+        if (context == null) {
+            throw new IllegalArgumentException("Parameter context must not be null.");
+        }
+        if (licenseData == null) {
+            throw new IllegalArgumentException("Parameter licenseData must not be null.");
+        }
+        if (this.keys.size() >= LicenseBundle.MAXIMUM_ENTRY_COUNT) {
+            throw new IllegalArgumentException("A bundle cannot hold more than " + LicenseBundle.MAXIMUM_ENTRY_COUNT +
+                    " licenses.");
+        }
+        if (!this.contexts.add(context.toString())) {
+            throw new IllegalArgumentException("The bundle already contains a license for context [" + context +
+                    "].");
+        }
+        this.keys.add(LicenseBundle.getKey(context));
+        this.licenses.add(licenseData.clone());
+        return this;
+    }
+
+    /**
+     * Returns the number of licenses added so far.
+     *
+     * @return the number of licenses.
+     */
+    public int size() {
+        return this.keys.size();
+    }
+
+    /**
+     * Writes the bundle, replacing the file if it exists.
+     *
+     * @param bundleFile The file to write the bundle to
+     * @throws ObjectSerializationException if the bundle could not be written.
+     */
+    public void write(final File bundleFile) {
+        if (bundleFile == null) {
+            throw new IllegalArgumentException("Parameter bundleFile must not be null.");
+        }
+
+        final int entryCount = this.keys.size();
+        final int slotCount = LicenseBundle.getSlotCount(entryCount);
+        final ByteBuffer index = ByteBuffer.allocate(Math.toIntExact(LicenseBundle.getIndexSize(slotCount)));
+        LicenseBundle.writeHeader(index, slotCount, entryCount);
+
+        long recordOffset = index.capacity();
+        for (int i = 0; i < entryCount; i++) {
+            final byte[] key = this.keys.get(i);
+            final int hash = LicenseBundle.hash(key);
+            int slot = hash & (slotCount - 1);
+            while (index.getLong(LicenseBundle.HEADER_SIZE + slot * LicenseBundle.SLOT_SIZE + 8) != 0L) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            final int slotOffset = LicenseBundle.HEADER_SIZE + slot * LicenseBundle.SLOT_SIZE;
+            index.putInt(slotOffset, hash).putInt(slotOffset + 4, key.length).putLong(slotOffset + 8, recordOffset);
+            recordOffset += key.length + 4L + this.licenses.get(i).length;
+        }
+        if (recordOffset > Integer.MAX_VALUE) {
+            throw new ObjectSerializationException("The license bundle would be larger than 2 GiB.");
+        }
+
+        final Path target = bundleFile.getAbsoluteFile().toPath();
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (final OutputStream file = Files.newOutputStream(temporary);
+                 final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+                output.write(index.array());
+                for (int i = 0; i < entryCount; i++) {
+                    final byte[] license = this.licenses.get(i);
+                    output.write(this.keys.get(i));
+                    output.writeInt(license.length);
+                    output.write(license);
+                }
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException e) {
+            if (temporary != null) {
+                temporary.toFile().delete();
+            }
+            throw new ObjectSerializationException("Could not write the license bundle [" + bundleFile.getPath() +
+                    "].", e);
+        }
+    }
+}
@@ -23,8 +23,8 @@ import java.util.Arrays;
 
 import ro.esolutions.licensing.DataSignatureManager;
 import ro.esolutions.licensing.License;
-import ro.esolutions.licensing.ObjectSerializer;
 import ro.esolutions.licensing.SignedLicense;
+import ro.esolutions.licensing.SignedLicenseCodec;
 import ro.esolutions.licensing.encryption.Encryptor;
 import ro.esolutions.licensing.encryption.KeyFileUtilities;
 import ro.esolutions.licensing.encryption.PasswordProvider;
@@ -59,6 +59,10 @@ public final class LicenseCreator {
 
     private final PasswordProvider privateKeyPasswordProvider;
 
+    private final String privateKeyId;
+
+    private final boolean compressLicenses;
+
     private LicenseCreator() {
         if (LicenseCreatorProperties.getPrivateKeyDataProvider() == null)
             throw new IllegalArgumentException("Parameter privateKeyDataProvider must not be null.");
@@ -68,6 +72,8 @@ public final class LicenseCreator {
 
         this.privateKeyPasswordProvider = LicenseCreatorProperties.getPrivateKeyPasswordProvider();
         this.privateKeyDataProvider = LicenseCreatorProperties.getPrivateKeyDataProvider();
+        this.privateKeyId = LicenseCreatorProperties.getPrivateKeyId();
+        this.compressLicenses = LicenseCreatorProperties.isCompressLicenses();
     }
 
     /**
@@ -112,11 +118,11 @@ public final class LicenseCreator {
             Arrays.fill(keyData, (byte) 0);
         }
 
-        byte[] encrypted = Encryptor.encryptRaw(license.serialize(), licensePassword);
+        byte[] encrypted = Encryptor.encryptRaw(license.serialize(this.compressLicenses), licensePassword);
 
         byte[] signature = new DataSignatureManager().signData(key, encrypted);
 
-        SignedLicense signed = new SignedLicense(encrypted, signature);
+        SignedLicense signed = new SignedLicense(encrypted, signature, this.privateKeyId);
 
         Arrays.fill(encrypted, (byte) 0);
         Arrays.fill(signature, (byte) 0);
@@ -141,7 +147,8 @@ public final class LicenseCreator {
     }
 
     /**
-     * Takes a license object and creates a secure and serialized version of it for delivery to the customer.
+     * Takes a license object and creates a secure and serialized version of it for delivery to the customer. The
+     * signed license is written in the {@link SignedLicenseCodec framed format}.
      *
      * @param license         The license object to be signed and serialized
      * @param licensePassword The password to encrypt the license with
@@ -155,11 +162,12 @@ public final class LicenseCreator {
     public final byte[] signAndSerializeLicense(License license, char[] licensePassword)
             throws AlgorithmNotSupportedException, KeyNotFoundException, InappropriateKeySpecificationException,
             InappropriateKeyException, ObjectSerializationException {
-        return new ObjectSerializer().writeObject(this.signLicense(license, licensePassword));
+        return SignedLicenseCodec.encode(this.signLicense(license, licensePassword));
     }
 
     /**
-     * Takes a license object and creates a secure and serialized version of it for delivery to the customer.
+     * Takes a license object and creates a secure and serialized version of it for delivery to the customer. The
+     * signed license is written in the {@link SignedLicenseCodec framed format}.
      *
      * @param license The license object to be signed and serialized
      * @return the signed and serialized license object.
@@ -172,6 +180,6 @@ public final class LicenseCreator {
     public final byte[] signAndSerializeLicense(License license)
             throws AlgorithmNotSupportedException, KeyNotFoundException, InappropriateKeySpecificationException,
             InappropriateKeyException, ObjectSerializationException {
-        return new ObjectSerializer().writeObject(this.signLicense(license));
+        return SignedLicenseCodec.encode(this.signLicense(license));
     }
 }
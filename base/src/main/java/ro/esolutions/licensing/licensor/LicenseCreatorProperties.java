@@ -34,6 +34,10 @@ public final class LicenseCreatorProperties {
 
     private static PasswordProvider privateKeyPasswordProvider;
 
+    private static String privateKeyId;
+
+    private static boolean compressLicenses;
+
     /**
      * Sets the provider of the data for the private key used to sign the license object.<br>
      * <br>
@@ -64,6 +68,40 @@ public final class LicenseCreatorProperties {
         return LicenseCreatorProperties.privateKeyPasswordProvider;
     }
 
+    /**
+     * Sets the identifier of the private key, which is embedded in every signed license so that the license manager
+     * can pick the matching public key. Use a new identifier whenever the key pair is rotated.<br>
+     * <br>
+     * This field is <b>optional</b>. If not provided, licenses are signed without a key identifier and are verified
+     * against the license manager's default public key.
+     *
+     * @param privateKeyId The identifier of the private key
+     */
+    public static void setPrivateKeyId(String privateKeyId) {
+        LicenseCreatorProperties.privateKeyId = privateKeyId;
+    }
+
+    static String getPrivateKeyId() {
+        return LicenseCreatorProperties.privateKeyId;
+    }
+
+    /**
+     * Sets whether the license payload is compressed before it is encrypted and signed. Licenses with long feature
+     * lists compress well, which makes them smaller to store and transfer and faster to decrypt and verify. The
+     * license manager detects compressed licenses and decompresses them transparently.<br>
+     * <br>
+     * This field is <b>optional</b> and defaults to {@code false}.
+     *
+     * @param compressLicenses Whether to compress licenses
+     */
+    public static void setCompressLicenses(boolean compressLicenses) {
+        LicenseCreatorProperties.compressLicenses = compressLicenses;
+    }
+
+    static boolean isCompressLicenses() {
+        return LicenseCreatorProperties.compressLicenses;
+    }
+
     /**
      * This class cannot be instantiated.
      */
@@ -0,0 +1,122 @@
+/*
+ * SeatAccountingTest.java from LicenseManager modified Tuesday, October 20, 2026 10:14:37 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ro.esolutions.licensing;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ro.esolutions.licensing.encryption.FilePrivateKeyDataProvider;
+import ro.esolutions.licensing.encryption.FilePublicKeyDataProvider;
+import ro.esolutions.licensing.encryption.RSAKeyPairGenerator;
+import ro.esolutions.licensing.licensor.LicenseCreator;
+import ro.esolutions.licensing.licensor.LicenseCreatorProperties;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests seat accounting through {@link LicenseManager#acquireSeat(Object, String)} with a shared
+ * {@link InMemorySeatStore}. The license manager is a singleton, so every test uses its own contexts.
+ */
+public class SeatAccountingTest {
+    private static final Map<Object, byte[]> LICENSES = new ConcurrentHashMap<>();
+
+    private static final InMemorySeatStore STORE = new InMemorySeatStore();
+
+    private static LicenseManager manager;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        final File directory = Files.createTempDirectory("seats").toFile();
+        final String privateKey = new File(directory, "private.key").getPath();
+        final String publicKey = new File(directory, "public.key").getPath();
+        final RSAKeyPairGenerator generator = new RSAKeyPairGenerator();
+        generator.saveKeyPairToFiles(generator.generateKeyPair(), privateKey, publicKey, "secret".toCharArray());
+
+        LicenseCreatorProperties.setPrivateKeyDataProvider(new FilePrivateKeyDataProvider(privateKey));
+        LicenseCreatorProperties.setPrivateKeyPasswordProvider(() -> "secret".toCharArray());
+
+        LicenseManagerProperties.setLicenseProvider(new DeserializingLicenseProvider() {
+            @Override
+            protected byte[] getLicenseData(final Object context) {
+                return LICENSES.get(context);
+            }
+        });
+        LicenseManagerProperties.setPublicKeyDataProvider(new FilePublicKeyDataProvider(publicKey));
+        LicenseManagerProperties.setPublicKeyPasswordProvider(() -> "secret".toCharArray());
+        LicenseManagerProperties.setSeatStore(STORE);
+        LicenseManagerProperties.setSeatBlockSize(2);
+        manager = LicenseManager.getInstance();
+    }
+
+    private static void license(final String context, final License.Builder builder) {
+        LICENSES.put(context, LicenseCreator.getInstance().signAndSerializeLicense(builder
+                .withProductKey("product").withHolder(context).withSubject("seats")
+                .withGoodBefore(Instant.now().plusSeconds(3600)).build()));
+    }
+
+    @Test(timeout = 10_000L)
+    public void acquireSeatReturnsNullWhenAnotherHolderHasAllSeats() throws Exception {
+        license("full", new License.Builder().withSeats(3));
+        assertEquals(3, STORE.reserve("other-process", "full", null, 3, 3, 60_000L));
+
+        assertNull(manager.acquireSeat("full"));
+        assertEquals(0, manager.getSeatsInUse("full", null));
+
+        STORE.release("other-process", "full", null, 1);
+        assertNotNull(manager.acquireSeat("full"));
+        assertNull(manager.acquireSeat("full"));
+    }
+
+    @Test(timeout = 10_000L)
+    public void wildcardGrantSharesItsSeatsAcrossMatchedNames() throws Exception {
+        license("wildcard", new License.Builder().withFeature(Feature.of("reports.*").seats(2).build()));
+
+        final SeatLease first = manager.acquireSeat("wildcard", "reports.a");
+        assertNotNull(first);
+        assertEquals("reports.*", first.getFeatureName());
+        assertNotNull(manager.acquireSeat("wildcard", "reports.b"));
+        assertNull(manager.acquireSeat("wildcard", "reports.c"));
+        assertEquals(2, manager.getSeatsInUse("wildcard", "reports.z"));
+        assertEquals(2, STORE.getReserved("wildcard", "reports.*"));
+        assertEquals(0, STORE.getReserved("wildcard", "reports.a"));
+
+        manager.releaseSeat(first);
+        assertNotNull(manager.acquireSeat("wildcard", "reports.c"));
+    }
+
+    @Test(timeout = 10_000L)
+    public void zeroSeatsMeansNotSeatLimitedForLicensesAndFeatures() throws Exception {
+        license("unlimited", new License.Builder().withSeats(0).withFeature("export"));
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(manager.acquireSeat("unlimited"));
+            assertNotNull(manager.acquireSeat("unlimited", "export"));
+        }
+        assertEquals(10, manager.getSeatsInUse("unlimited", null));
+        assertEquals(10, manager.getSeatsInUse("unlimited", "export"));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * BundleLicenseProvider.java from LicenseManager modified Monday, October 19, 2026 14:21:09 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import ro.esolutions.licensing.exception.ObjectDeserializationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An implementation of the {@link LicenseProvider} that reads the licenses of many contexts from a single
+ * {@link LicenseBundle license bundle} file instead of one file per context. The bundle is memory mapped once, when
+ * the provider is constructed or {@link #reload() reloaded}; looking up a license is then a hash probe in the mapped
+ * index with no file system access at all.<br>
+ * <br>
+ * Like {@link FileLicenseProvider}, this implementation assumes that license contexts (lookup keys) are always either
+ * strings or have a meaningful {@link Object#toString()} implementation, which is used as the key in the bundle.
+ *
+ * @since 1.0.4
+ */
+public class BundleLicenseProvider extends DeserializingLicenseProvider {
+    private final File bundleFile;
+
+    private volatile ByteBuffer bundle;
+
+    /**
+     * Constructs a bundle-based license provider and maps the bundle file.
+     *
+     * @param bundleFile The license bundle file
+     * @throws ObjectDeserializationException if the file cannot be read or is not a license bundle.
+     */
+    public BundleLicenseProvider(final File bundleFile) {
+        if (bundleFile == null) {
+            throw new IllegalArgumentException("Argument bundleFile cannot be null.");
+        }
+        this.bundleFile = bundleFile;
+        this.reload();
+    }
+
+    /**
+     * Maps the bundle file again, so that licenses written to it since it was last mapped become visible. Bundles
+     * should be replaced by writing a new file and moving it over the old one, never by rewriting the mapped file in
+     * place.
+     *
+     * @throws ObjectDeserializationException if the file cannot be read or is not a license bundle.
+     */
+    public void reload() {
+        final ByteBuffer bundle;
+        try (final FileChannel channel = FileChannel.open(this.bundleFile.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ObjectDeserializationException("The license bundle [" + this.bundleFile.getPath() +
+                        "] is larger than 2 GiB.");
+            }
+            bundle = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (final IOException e) {
+            throw new ObjectDeserializationException("Could not read the license bundle [" +
+                    this.bundleFile.getPath() + "].", e);
+        }
+
+        if (!LicenseBundle.isBundle(bundle)) {
+            throw new ObjectDeserializationException("The file [" + this.bundleFile.getPath() +
+                    "] is not a license bundle.");
+        }
+        final int slotCount = bundle.getInt(8);
+        if (slotCount < 1 || Integer.bitCount(slotCount) != 1 ||
+                LicenseBundle.getIndexSize(slotCount) > bundle.limit()) {
+            throw new ObjectDeserializationException("The license bundle [" + this.bundleFile.getPath() +
+                    "] has a corrupt index.");
+        }
+        this.bundle = bundle;
+    }
+
+    /**
+     * Gets the stored, still-encrypted, still-serialized license content and signature from the bundle. Returns null
+     * (not an empty array) if the bundle contains no license for the context. Records larger than the
+     * {@link #setMaximumLicenseSize(int) maximum license size} are rejected without being copied.
+     *
+     * @param context The context for which to get the license
+     * @return the signed license data.
+     */
+    @Override
+    protected byte[] getLicenseData(final Object context) {
+        if (context == null) {
+            throw new IllegalArgumentException("Argument context cannot be null.");
+        }
+        final ByteBuffer bundle = this.bundle;
+        final byte[] key = LicenseBundle.getKey(context);
+        final int hash = LicenseBundle.hash(key);
+        final int mask = bundle.getInt(8) - 1;
+
+        for (int slot = hash & mask, probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            final int slotOffset = LicenseBundle.HEADER_SIZE + slot * LicenseBundle.SLOT_SIZE;
+            final long recordOffset = bundle.getLong(slotOffset + 8);
+            if (recordOffset == 0L) {
+                return null;
+            }
+            if (bundle.getInt(slotOffset) != hash || bundle.getInt(slotOffset + 4) != key.length) {
+                continue;
+            }
+            if (recordOffset < 0L || recordOffset + key.length + 4L > bundle.limit()) {
+                throw this.corrupt();
+            }
+            final int keyOffset = (int) recordOffset;
+            if (BundleLicenseProvider.keyEquals(bundle, keyOffset, key)) {
+                final int dataOffset = keyOffset + key.length + 4;
+                final int length = bundle.getInt(dataOffset - 4);
+                if (length < 0 || (long) dataOffset + length > bundle.limit()) {
+                    throw this.corrupt();
+                }
+                if (length > this.getMaximumLicenseSize()) {
+                    throw new ObjectDeserializationException("The license data for context [" + context + "] is " +
+                            length + " bytes long, which exceeds the maximum of " + this.getMaximumLicenseSize() +
+                            " bytes.");
+                }
+                final byte[] data = new byte[length];
+                bundle.get(dataOffset, data);
+                return data;
+            }
+        }
+        return null;
+    }
+
+    private static boolean keyEquals(final ByteBuffer bundle, final int offset, final byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (bundle.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ObjectDeserializationException corrupt() {
+        return new ObjectDeserializationException("The license bundle [" + this.bundleFile.getPath() +
+                "] has a corrupt record.");
+    }
+
+    /**
+     * Gets the license bundle file.
+     *
+     * @return the bundle file.
+     */
+    public File getBundleFile() {
+        return this.bundleFile;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * CompiledFeatureRestriction.java from LicenseManager modified Monday, October 19, 2026 16:02:55 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FeatureRestriction} annotation resolved into a {@link FeatureSet} and its operand, so that checking a
+ * license against it is a single bitset test. Restrictions are compiled once per annotated element and cached: per
+ * class with a {@link ClassValue}, per method or constructor in a map held by the {@code ClassValue} of its declaring
+ * class (so the cache never keeps a class loader alive), and per package in a concurrent map.
+ *
+ * @since 1.0.4
+ */
+final class CompiledFeatureRestriction {
+    /**
+     * The restriction of elements that are not annotated, which every license satisfies.
+     */
+    static final CompiledFeatureRestriction UNRESTRICTED = new CompiledFeatureRestriction(null, null);
+
+    private static final ClassValue<CompiledFeatureRestriction> CLASSES = new ClassValue<CompiledFeatureRestriction>() {
+        @Override
+        protected CompiledFeatureRestriction computeValue(final Class<?> type) {
+            return CompiledFeatureRestriction.compile(type);
+        }
+    };
+
+    private static final ClassValue<ConcurrentHashMap<Member, CompiledFeatureRestriction>> MEMBERS =
+            new ClassValue<ConcurrentHashMap<Member, CompiledFeatureRestriction>>() {
+                @Override
+                protected ConcurrentHashMap<Member, CompiledFeatureRestriction> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private static final ConcurrentHashMap<AnnotatedElement, CompiledFeatureRestriction> OTHERS =
+            new ConcurrentHashMap<>();
+
+    private final FeatureSet featureSet;
+
+    private final FeatureRestrictionOperand operand;
+
+    private CompiledFeatureRestriction(final FeatureSet featureSet, final FeatureRestrictionOperand operand) {
+        this.featureSet = featureSet;
+        this.operand = operand;
+    }
+
+    /**
+     * Returns the compiled restriction of the annotated element, compiling it on first use.
+     *
+     * @param target The class, method or package
+     * @return the compiled restriction, {@link #UNRESTRICTED} if the element is not annotated.
+     */
+    static CompiledFeatureRestriction forElement(final AnnotatedElement target) {
+        if (target instanceof Class) {
+            return CLASSES.get((Class<?>) target);
+        }
+        if (target instanceof Member) {
+            final Member member = (Member) target;
+            final ConcurrentHashMap<Member, CompiledFeatureRestriction> members =
+                    MEMBERS.get(member.getDeclaringClass());
+            final CompiledFeatureRestriction restriction = members.get(member);
+            return restriction != null ? restriction : members.computeIfAbsent(member,
+                    m -> CompiledFeatureRestriction.compile((AnnotatedElement) m));
+        }
+        final CompiledFeatureRestriction restriction = OTHERS.get(target);
+        return restriction != null ? restriction : OTHERS.computeIfAbsent(target, CompiledFeatureRestriction::compile);
+    }
+
+    private static CompiledFeatureRestriction compile(final AnnotatedElement target) {
+        final FeatureRestriction annotation = target.getAnnotation(FeatureRestriction.class);
+        return annotation == null ?
+                UNRESTRICTED :
+                new CompiledFeatureRestriction(FeatureSet.of(annotation.value()), annotation.operand());
+    }
+
+    /**
+     * Checks the license against this restriction.
+     *
+     * @param license The license to check
+     * @return {@code true} if the license satisfies the restriction, {@code false} otherwise.
+     */
+    boolean test(final License license) {
+        if (this.featureSet == null) {
+            return true;
+        }
+        return this.operand == FeatureRestrictionOperand.AND ?
+                license.hasLicenseForAllFeatures(this.featureSet) :
+                license.hasLicenseForAnyFeature(this.featureSet);
+    }
+}
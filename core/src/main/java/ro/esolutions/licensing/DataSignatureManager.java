@@ -32,6 +32,11 @@ import ro.esolutions.licensing.exception.InappropriateKeyException;
 import ro.esolutions.licensing.exception.InvalidSignatureException;
 
 public final class DataSignatureManager {
+    /**
+     * The signature algorithm used to sign and verify licenses.
+     */
+    public static final String SIGNATURE_ALGORITHM = "SHA1with" + KeyFileUtilities.KEY_ALGORITHM;
+
     public final byte[] signData(final PrivateKey key, final byte[] data) throws AlgorithmNotSupportedException,
             InappropriateKeyException {
 
@@ -83,7 +88,7 @@ public final class DataSignatureManager {
 
     private Signature getSignature() {
         try {
-            return Signature.getInstance("SHA1with" + KeyFileUtilities.KEY_ALGORITHM);
+            return Signature.getInstance(SIGNATURE_ALGORITHM);
         } catch (final NoSuchAlgorithmException e) {
             throw new AlgorithmNotSupportedException("SHA-1 with " + KeyFileUtilities.KEY_ALGORITHM);
         }
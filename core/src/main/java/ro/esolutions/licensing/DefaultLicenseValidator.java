@@ -28,13 +28,13 @@ public class DefaultLicenseValidator implements LicenseValidator {
 
     @Override
     public void validateLicense(final License license) throws InvalidLicenseException {
-        final Instant time = Instant.now();
-        if (license.getGoodAfterDate().isAfter(time))
+        final long time = System.currentTimeMillis();
+        if (license.getGoodAfterEpochMilli() > time)
             throw new InvalidLicenseException("The " + this.getLicenseDescription(license) +
                     " does not take effect until " + this.getFormattedDate(license.getGoodAfterDate()) + ".");
-        if (license.getGoodBeforeDate().isBefore(time))
+        if (license.getGoodBeforeEpochMilli() < time)
             throw new ExpiredLicenseException("The " + this.getLicenseDescription(license) +
-                    " expired on " + this.getFormattedDate(license.getGoodAfterDate()) + ".");
+                    " expired on " + this.getFormattedDate(license.getGoodBeforeDate()) + ".");
     }
 
     public String getLicenseDescription(final License license) {
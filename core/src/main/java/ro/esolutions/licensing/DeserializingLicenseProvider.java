@@ -18,6 +18,8 @@
 
 package ro.esolutions.licensing;
 
+import ro.esolutions.licensing.exception.ObjectDeserializationException;
+
 /**
  * An abstract implementation of the {@link LicenseProvider} interface that assumes the license will be stored in
  * serialized form. Users need only implement the method returning the raw byte data of the serialized license in order
@@ -28,21 +30,65 @@ package ro.esolutions.licensing;
  * @since 1.0.0
  */
 public abstract class DeserializingLicenseProvider implements LicenseProvider {
+    private int maximumLicenseSize = ObjectSerializer.DEFAULT_MAXIMUM_BYTES;
+
     /**
      * Gets the stored, still-encrypted license content and signature from the persistence store.
      *
      * @param context The context for which to get the license
      * @return the signed license object.
+     * @throws ObjectDeserializationException if the license data is larger than the
+     *                                        {@link #setMaximumLicenseSize(int) maximum license size} or cannot be
+     *                                        deserialized.
      */
     @Override
     public final SignedLicense getLicense(final Object context) {
         final byte[] data = this.getLicenseData(context);
+        if (data == null) {
+            return null;
+        }
+        if (data.length > this.maximumLicenseSize) {
+            throw new ObjectDeserializationException("The license data for context [" + context + "] is " +
+                    data.length + " bytes long, which exceeds the maximum of " + this.maximumLicenseSize + " bytes.");
+        }
 
-        return data == null ? null : this.deserializeLicense(data);
+        return this.deserializeLicense(data);
     }
 
+    /**
+     * Deserializes the stored license data. Data in the {@link SignedLicenseCodec framed format} is parsed directly;
+     * data written with Java object serialization by earlier versions is detected and read with an object stream.
+     *
+     * @param data The stored license data
+     * @return the signed license object.
+     */
     public final SignedLicense deserializeLicense(final byte[] data) {
-        return new ObjectSerializer().readObject(SignedLicense.class, data);
+        return SignedLicenseCodec.isFramed(data) ?
+                SignedLicenseCodec.decode(data) :
+                new ObjectSerializer().readObject(SignedLicense.class, data, this.maximumLicenseSize);
+    }
+
+    /**
+     * Gets the maximum size, in bytes, of the stored license data. Larger data is rejected before it is deserialized.
+     *
+     * @return the maximum license size.
+     */
+    public int getMaximumLicenseSize() {
+        return this.maximumLicenseSize;
+    }
+
+    /**
+     * Sets the maximum size, in bytes, of the stored license data. Larger data is rejected before it is deserialized.
+     * Implementations that can tell the size of the stored data up front should also use this to avoid reading
+     * oversized data at all. Defaults to {@link ObjectSerializer#DEFAULT_MAXIMUM_BYTES}.
+     *
+     * @param maximumLicenseSize The maximum license size
+     */
+    public void setMaximumLicenseSize(final int maximumLicenseSize) {
+        if (maximumLicenseSize < 1) {
+            throw new IllegalArgumentException("Argument maximumLicenseSize must be positive.");
+        }
+        this.maximumLicenseSize = maximumLicenseSize;
     }
 
     /**
@@ -20,11 +20,9 @@ package ro.esolutions.licensing;
 
 import com.google.common.base.MoreObjects;
 
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
-
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.Objects;
 
 public class Feature implements Cloneable, Serializable {
     private static final long serialVersionUID = 1L;
@@ -33,10 +31,24 @@ public class Feature implements Cloneable, Serializable {
     private final int seats;
     private final Instant goodBeforeDate;
 
+    /**
+     * The expiry date in milliseconds since the epoch ({@link Long#MAX_VALUE} if the feature never expires), so that
+     * feature checks compare primitives instead of {@link Instant}s.
+     */
+    private final transient long goodBeforeEpochMilli;
+
+    /**
+     * The hash code, computed once at construction because features are used as set elements and map keys.
+     */
+    private final transient int hashCode;
+
     private Feature(final Builder builder) {
         this.name = builder.name;
         this.seats = builder.seats;
         this.goodBeforeDate = builder.goodBeforeDate;
+        this.goodBeforeEpochMilli = builder.goodBeforeDate == null ?
+                Long.MAX_VALUE : Feature.toEpochMilli(builder.goodBeforeDate);
+        this.hashCode = (31 * Objects.hashCode(this.name) + this.seats) * 31 + Objects.hashCode(this.goodBeforeDate);
     }
 
     public static Feature.Builder of(final String name) {
@@ -55,6 +67,35 @@ public class Feature implements Cloneable, Serializable {
         return goodBeforeDate;
     }
 
+    /**
+     * Indicates whether the feature has not expired at the given time, to the millisecond.
+     *
+     * @param now The time to check, in milliseconds since the epoch
+     * @return {@code true} if the feature has no expiry date or expires after {@code now}, {@code false} otherwise.
+     */
+    final boolean isActiveAt(final long now) {
+        return now < this.goodBeforeEpochMilli;
+    }
+
+    final long getGoodBeforeEpochMilli() {
+        return this.goodBeforeEpochMilli;
+    }
+
+    /**
+     * Converts the instant to milliseconds since the epoch, saturating instead of overflowing for instants (such as
+     * {@link Instant#MAX}) that are out of range.
+     *
+     * @param instant The instant
+     * @return the milliseconds since the epoch.
+     */
+    static long toEpochMilli(final Instant instant) {
+        try {
+            return instant.toEpochMilli();
+        } catch (final ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
     /**
      * Deserializes a string representation of a feature into a feature.
      *
@@ -76,20 +117,39 @@ public class Feature implements Cloneable, Serializable {
     }
 
     /**
-     * Indicates whether these features are the same feature. Important note: Two features <b>can</b> be the same
-     * feature (equal) and have different expiration dates.
+     * Indicates whether these features are the same feature. Features are equal when their names, seats and expiration
+     * dates are all equal.
      *
      * @param object The feature to check for equality against
      * @return {@code true} if the features are the same, {@code false} otherwise.
      */
     @Override
     public final boolean equals(final Object object) {
-        return EqualsBuilder.reflectionEquals(this, object);
+        if (object == this) {
+            return true;
+        }
+        if (!(object instanceof Feature)) {
+            return false;
+        }
+        final Feature feature = (Feature) object;
+        return this.hashCode == feature.hashCode &&
+                this.seats == feature.seats &&
+                Objects.equals(this.name, feature.name) &&
+                Objects.equals(this.goodBeforeDate, feature.goodBeforeDate);
     }
 
     @Override
     public final int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this);
+        return this.hashCode;
+    }
+
+    /**
+     * Rebuilds features read with Java object serialization, whose derived fields are not stored.
+     *
+     * @return an equal feature with its derived fields computed.
+     */
+    private Object readResolve() {
+        return this.clone();
     }
 
     public final String toString() {
@@ -0,0 +1,186 @@
+/*
+ * FeatureIndex.java from LicenseManager modified Monday, October 19, 2026 14:58:31 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only index over the features of a {@link License}, built once per license so that checking a feature by
+ * name is a single hash probe instead of a scan over the feature set. The features are also kept in a flat array, in
+ * license order, for callers that need to walk all of them.<br>
+ * <br>
+ * If a license holds several features with the same name, the first one wins, as it did when the feature set was
+ * scanned. Wildcard grants such as {@code reports.*} are resolved through a {@link FeatureNameTrie} when no feature
+ * has the exact name.<br>
+ * <br>
+ * The index also keeps a bitset, by {@link FeatureRegistry} id, of the features that have not expired, which is what
+ * {@link FeatureSet} checks run against. License feature names are only looked up in the registry, never added to it,
+ * so licenses cannot grow it; features whose names no feature set has registered are simply left out of the bitset,
+ * as no check can ask for them. The bitset is recomputed only when the clock passes the earliest expiry date among the
+ * features it enables, or when the registry has grown since it was computed.
+ *
+ * @since 1.0.4
+ */
+final class FeatureIndex {
+    private final Feature[] features;
+
+    private final Map<String, Feature> featuresByName;
+
+    /**
+     * The first feature of each distinct name, whose registry ids are looked up when the bitset is computed.
+     */
+    private final Feature[] namedFeatures;
+
+    private volatile EnabledFeatures enabledFeatures;
+
+    /**
+     * The wildcard grants ({@code reports.*}), or {@code null} if the license has none.
+     */
+    private final FeatureNameTrie wildcards;
+
+    FeatureIndex(final Feature[] features) {
+        this.features = features;
+        this.featuresByName = new HashMap<>(Math.max(4, (int) (features.length / 0.75f) + 1));
+        final Feature[] namedFeatures = new Feature[features.length];
+        FeatureNameTrie wildcards = null;
+        int count = 0;
+        for (final Feature feature : features) {
+            if (FeatureNameTrie.isWildcard(feature.getName())) {
+                if (wildcards == null) {
+                    wildcards = new FeatureNameTrie();
+                }
+                wildcards.add(feature);
+            }
+            if (this.featuresByName.putIfAbsent(feature.getName(), feature) == null && feature.getName() != null) {
+                namedFeatures[count++] = feature;
+            }
+        }
+        this.namedFeatures = count == namedFeatures.length ? namedFeatures : Arrays.copyOf(namedFeatures, count);
+        this.wildcards = wildcards;
+    }
+
+    /**
+     * Returns the feature with the given name.
+     *
+     * @param featureName The feature name
+     * @return the feature, or {@code null} if the license has no feature with that name.
+     */
+    Feature get(final String featureName) {
+        return this.featuresByName.get(featureName);
+    }
+
+    /**
+     * Returns the feature that grants the given name: the feature with exactly that name if there is one, otherwise
+     * the most specific wildcard grant that covers it.
+     *
+     * @param featureName The feature name
+     * @return the granting feature, or {@code null} if the license does not grant the name.
+     */
+    Feature find(final String featureName) {
+        final Feature feature = this.featuresByName.get(featureName);
+        return feature != null || this.wildcards == null || featureName == null ?
+                feature : this.wildcards.find(featureName);
+    }
+
+    /**
+     * Indicates whether the license holds wildcard grants, which the bitset of enabled features does not cover.
+     *
+     * @return {@code true} if there are wildcard grants, {@code false} otherwise.
+     */
+    boolean hasWildcards() {
+        return this.wildcards != null;
+    }
+
+    /**
+     * Returns the feature at the given position in license order.
+     *
+     * @param index The position of the feature
+     * @return the feature.
+     */
+    Feature get(final int index) {
+        return this.features[index];
+    }
+
+    /**
+     * Returns the number of features.
+     *
+     * @return the number of features.
+     */
+    int size() {
+        return this.features.length;
+    }
+
+    /**
+     * Returns the bitset, by registry id, of the features that have not expired at the given time. The returned array
+     * is shared and must not be modified.
+     *
+     * @param now The current time in milliseconds since the epoch
+     * @return the bitset of enabled features.
+     */
+    long[] getEnabledBits(final long now) {
+        final int registrySize = FeatureRegistry.getInstance().size();
+        EnabledFeatures enabledFeatures = this.enabledFeatures;
+        if (enabledFeatures == null || now >= enabledFeatures.validUntil ||
+                registrySize != enabledFeatures.registrySize) {
+            enabledFeatures = this.computeEnabledFeatures(now, registrySize);
+            this.enabledFeatures = enabledFeatures;
+        }
+        return enabledFeatures.bits;
+    }
+
+    private EnabledFeatures computeEnabledFeatures(final long now, final int registrySize) {
+        final FeatureRegistry registry = FeatureRegistry.getInstance();
+        final int[] ids = new int[this.namedFeatures.length];
+        int maximumId = -1;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registry.getId(this.namedFeatures[i].getName());
+            maximumId = Math.max(maximumId, ids[i]);
+        }
+        final long[] bits = new long[(maximumId >> 6) + 1];
+        long validUntil = Long.MAX_VALUE;
+        for (int i = 0; i < ids.length; i++) {
+            final long goodBefore = this.namedFeatures[i].getGoodBeforeEpochMilli();
+            if (ids[i] >= 0 && now < goodBefore) {
+                bits[ids[i] >> 6] |= 1L << ids[i];
+                validUntil = Math.min(validUntil, goodBefore);
+            }
+        }
+        return new EnabledFeatures(bits, validUntil, registrySize);
+    }
+
+    private static final class EnabledFeatures {
+        private final long[] bits;
+
+        private final long validUntil;
+
+        /**
+         * The registry size the bitset was computed against. A name registered since then may be one of this
+         * license's features, so the bitset is recomputed when the registry grows.
+         */
+        private final int registrySize;
+
+        private EnabledFeatures(final long[] bits, final long validUntil, final int registrySize) {
+            this.bits = bits;
+            this.validUntil = validUntil;
+            this.registrySize = registrySize;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * FeatureMeter.java from LicenseManager modified Tuesday, October 20, 2026 11:02:51 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Counts feature usage per context and feature, optionally enforces a {@link FeatureQuota} on it, and periodically
+ * hands the counts to a {@link UsageSink} from a background thread.<br>
+ * <br>
+ * Metering a use costs two concurrent map lookups, one quota check and one counter increment, and takes no lock: the
+ * counts are {@link LongAdder}s, which spread concurrent increments over per-core cells, and each rate limit is a
+ * token bucket kept as a single theoretical arrival time updated with compare-and-set (the generic cell rate
+ * algorithm), while each fixed window quota is a counter updated with compare-and-set and replaced once per window.
+ * The quota of each context and feature is looked up once, the first time the pair is used.<br>
+ * <br>
+ * A context and feature that go unused for a whole flush interval, and whose quota has fully recovered, are evicted
+ * at the next flush, so the meter only keeps the pairs in recent use. Their quota starts afresh on the next use, as it
+ * would have been anyway. An evicted meter is flushed once more at the following flush, to deliver any use counted by
+ * a thread that looked it up just before it was evicted.<br>
+ * <br>
+ * Quotas and counts are kept in this process only. {@link #close() Close} the meter when the application shuts down
+ * to deliver the final counts.
+ *
+ * @since 1.0.4
+ */
+public final class FeatureMeter implements AutoCloseable {
+    private final UsageSink sink;
+
+    private final BiFunction<Object, String, FeatureQuota> quotas;
+
+    private final ConcurrentHashMap<Object, ConcurrentHashMap<String, Meter>> meters = new ConcurrentHashMap<>();
+
+    /**
+     * The meters evicted at the previous flush. Guarded by this meter's flush lock.
+     */
+    private List<Meter> evicted = new ArrayList<>();
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Constructs a meter without quotas.
+     *
+     * @param sink          The sink to deliver the usage to
+     * @param flushInterval The time between deliveries
+     */
+    public FeatureMeter(final UsageSink sink, final Duration flushInterval) {
+        this(sink, flushInterval, (context, featureName) -> null);
+    }
+
+    /**
+     * Constructs a meter with quotas.
+     *
+     * @param sink          The sink to deliver the usage to
+     * @param flushInterval The time between deliveries
+     * @param quotas        Returns the quota of a context and feature, or {@code null} if its usage is not limited
+     */
+    public FeatureMeter(final UsageSink sink, final Duration flushInterval,
+                        final BiFunction<Object, String, FeatureQuota> quotas) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Parameter sink must not be null.");
+        }
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Parameter flushInterval must be a positive duration.");
+        }
+        if (quotas == null) {
+            throw new IllegalArgumentException("Parameter quotas must not be null.");
+        }
+        this.sink = sink;
+        this.quotas = quotas;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "license-feature-meter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = flushInterval.toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records one use of the feature by the context, unless that would exceed its quota.
+     *
+     * @param context     The context (account, client, etc.) using the feature
+     * @param featureName The feature being used
+     * @return {@code true} if the use was within the quota and has been counted, {@code false} if the quota is
+     * exhausted.
+     */
+    public boolean tryUse(final Object context, final String featureName) {
+        if (context == null) {
+            throw new IllegalArgumentException("Parameter context must not be null.");
+        }
+        if (featureName == null) {
+            throw new IllegalArgumentException("Parameter featureName must not be null.");
+        }
+        final Meter meter = this.getMeter(context, featureName);
+        if (meter.tryAcquire()) {
+            meter.count.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private Meter getMeter(final Object context, final String featureName) {
+        while (true) {
+            ConcurrentHashMap<String, Meter> features = this.meters.get(context);
+            if (features == null) {
+                features = this.meters.computeIfAbsent(context, c -> new ConcurrentHashMap<>());
+            }
+            Meter meter = features.get(featureName);
+            if (meter == null) {
+                meter = features.computeIfAbsent(featureName,
+                        name -> new Meter(context, name, this.quotas.apply(context, name)));
+                // The context may have been evicted while the meter was added to it.
+                if (this.meters.get(context) != features) {
+                    continue;
+                }
+            }
+            return meter;
+        }
+    }
+
+    /**
+     * Delivers the usage counted since the previous flush to the sink now, and evicts the meters that have been idle
+     * since then. This runs automatically at the flush interval.
+     */
+    public synchronized void flush() {
+        final long now = System.nanoTime();
+        final List<FeatureUsage> usage = new ArrayList<>();
+        final List<LongAdder> counters = new ArrayList<>();
+        for (final Meter meter : this.evicted) {
+            FeatureMeter.collect(meter, usage, counters);
+        }
+        final List<Meter> evicted = new ArrayList<>();
+        for (final Map.Entry<Object, ConcurrentHashMap<String, Meter>> context : this.meters.entrySet()) {
+            final ConcurrentHashMap<String, Meter> features = context.getValue();
+            for (final Meter meter : features.values()) {
+                if (!FeatureMeter.collect(meter, usage, counters) && meter.isIdle(now) &&
+                        features.remove(meter.featureName, meter)) {
+                    evicted.add(meter);
+                }
+            }
+            if (features.isEmpty()) {
+                this.meters.computeIfPresent(context.getKey(), (c, current) -> current.isEmpty() ? null : current);
+            }
+        }
+        this.evicted = evicted;
+        if (usage.isEmpty()) {
+            return;
+        }
+        try {
+            this.sink.record(usage);
+        } catch (final RuntimeException e) {
+            // keep the usage for the next flush rather than losing it
+            for (int i = 0; i < usage.size(); i++) {
+                counters.get(i).add(usage.get(i).getCount());
+            }
+        }
+    }
+
+    /**
+     * Adds the meter's count since the previous flush to the usage, if there is any.
+     *
+     * @return {@code true} if the meter was used since the previous flush, {@code false} otherwise.
+     */
+    private static boolean collect(final Meter meter, final List<FeatureUsage> usage, final List<LongAdder> counters) {
+        final long count = meter.count.sumThenReset();
+        if (count == 0L) {
+            return false;
+        }
+        usage.add(new FeatureUsage(meter.context, meter.featureName, count));
+        counters.add(meter.count);
+        return true;
+    }
+
+    /**
+     * Stops the background flushes and delivers the remaining usage.
+     */
+    @Override
+    public void close() {
+        this.flusher.shutdown();
+        try {
+            this.flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+    }
+
+    private static final class Meter {
+        private final Object context;
+
+        private final String featureName;
+
+        private final LongAdder count = new LongAdder();
+
+        private final FeatureQuota quota;
+
+        /**
+         * The theoretical arrival time, in {@link System#nanoTime()} terms, of the next use if uses came at exactly the
+         * quota's rate. A use is allowed while this runs no further ahead of the clock than the quota's burst. Only
+         * set for rate limits.
+         */
+        private final AtomicLong theoreticalArrivalTime;
+
+        /**
+         * The time the meter was created, in {@link System#nanoTime()} terms, at which the first window starts.
+         */
+        private final long origin;
+
+        /**
+         * The current window. Only set for fixed window quotas.
+         */
+        private final AtomicReference<Window> window;
+
+        private Meter(final Object context, final String featureName, final FeatureQuota quota) {
+            this.context = context;
+            this.featureName = featureName;
+            this.quota = quota;
+            this.origin = System.nanoTime();
+            final boolean fixedWindow = quota != null && quota.isFixedWindow();
+            this.theoreticalArrivalTime = quota == null || fixedWindow ? null : new AtomicLong(this.origin);
+            this.window = fixedWindow ? new AtomicReference<>(new Window(0L)) : null;
+        }
+
+        private boolean tryAcquire() {
+            if (this.quota == null) {
+                return true;
+            }
+            final long now = System.nanoTime();
+            if (this.window != null) {
+                return this.tryAcquireInWindow(now);
+            }
+            final long tolerance = this.quota.getToleranceNanos();
+            final long interval = this.quota.getEmissionIntervalNanos();
+            while (true) {
+                final long arrival = this.theoreticalArrivalTime.get();
+                final long start = arrival - now > 0 ? arrival : now;
+                if (start - now > tolerance) {
+                    return false;
+                }
+                if (this.theoreticalArrivalTime.compareAndSet(arrival, start + interval)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Indicates whether the quota has fully recovered, so that a new meter would enforce it the same way: the
+         * token bucket is full, or the current window has ended or has not been used.
+         */
+        private boolean isIdle(final long now) {
+            if (this.theoreticalArrivalTime != null) {
+                return this.theoreticalArrivalTime.get() - now <= 0;
+            }
+            if (this.window != null) {
+                final Window window = this.window.get();
+                return window.index < (now - this.origin) / this.quota.getPeriodNanos() || window.used.get() == 0L;
+            }
+            return true;
+        }
+
+        /**
+         * Counts the use against the current window, moving to a new window first if the current one has ended. The
+         * window is only replaced once per period, so uses within a window cost one compare-and-set.
+         */
+        private boolean tryAcquireInWindow(final long now) {
+            final long index = (now - this.origin) / this.quota.getPeriodNanos();
+            Window window = this.window.get();
+            while (window.index < index) {
+                final Window next = new Window(index);
+                window = this.window.compareAndSet(window, next) ? next : this.window.get();
+            }
+            final long limit = this.quota.getLimit();
+            while (true) {
+                final long used = window.used.get();
+                if (used >= limit) {
+                    return false;
+                }
+                if (window.used.compareAndSet(used, used + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static final class Window {
+        private final long index;
+
+        private final AtomicLong used = new AtomicLong();
+
+        private Window(final long index) {
+            this.index = index;
+        }
+    }
+}
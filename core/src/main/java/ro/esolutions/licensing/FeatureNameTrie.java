@@ -0,0 +1,115 @@
+/*
+ * FeatureNameTrie.java from LicenseManager modified Monday, October 19, 2026 17:12:26 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.Arrays;
+
+/**
+ * A character trie of the wildcard grants in a license. A feature named {@code reports.*} grants every feature whose
+ * name starts with {@code reports.}, such as {@code reports.export.pdf}, and a feature named {@code *} grants every
+ * feature. Looking up a name walks its characters once, so the cost depends on the length of the name and not on the
+ * number of grants, and it allocates nothing. When several grants match, the longest (most specific) one wins.
+ *
+ * @since 1.0.4
+ */
+final class FeatureNameTrie {
+    private static final char[] NO_LABELS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Indicates whether the feature name is a wildcard grant.
+     *
+     * @param featureName The feature name
+     * @return {@code true} if the name is {@code *} or ends with {@code .*}, {@code false} otherwise.
+     */
+    static boolean isWildcard(final String featureName) {
+        return featureName != null && (featureName.equals("*") || featureName.endsWith(".*"));
+    }
+
+    /**
+     * Adds a wildcard grant. If the license already holds a grant for the same prefix, the first one is kept.
+     *
+     * @param feature The feature whose name is a wildcard
+     */
+    void add(final Feature feature) {
+        final String name = feature.getName();
+        Node node = this.root;
+        for (int i = 0, length = name.length() - 1; i < length; i++) {
+            node = node.getOrAddChild(name.charAt(i));
+        }
+        if (node.grant == null) {
+            node.grant = feature;
+        }
+    }
+
+    /**
+     * Returns the most specific grant that covers the feature name.
+     *
+     * @param featureName The feature name
+     * @return the grant, or {@code null} if no wildcard covers the name.
+     */
+    Feature find(final String featureName) {
+        final int length = featureName.length();
+        Node node = this.root;
+        Feature grant = length > 0 ? node.grant : null;
+        for (int i = 0; i < length - 1; i++) {
+            node = node.getChild(featureName.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.grant != null) {
+                grant = node.grant;
+            }
+        }
+        return grant;
+    }
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+
+        private Node[] children = NO_CHILDREN;
+
+        private Feature grant;
+
+        private Node getChild(final char label) {
+            final char[] labels = this.labels;
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return this.children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(final char label) {
+            Node child = this.getChild(label);
+            if (child == null) {
+                child = new Node();
+                this.labels = Arrays.copyOf(this.labels, this.labels.length + 1);
+                this.labels[this.labels.length - 1] = label;
+                this.children = Arrays.copyOf(this.children, this.children.length + 1);
+                this.children[this.children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
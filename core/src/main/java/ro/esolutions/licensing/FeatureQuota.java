@@ -0,0 +1,121 @@
+/*
+ * FeatureQuota.java from LicenseManager modified Tuesday, October 20, 2026 00:52:09 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.time.Duration;
+
+/**
+ * A usage quota enforced by a {@link FeatureMeter}, in one of two modes:
+ * <ul>
+ *     <li>{@link #of(long, Duration) A rate limit} with a burst capacity of {@code limit} uses: a token bucket of
+ *     capacity {@code limit} refilled at {@code limit / period}. Unused allowance accumulates up to {@code limit}, so
+ *     a full burst can be followed by uses at the refill rate, and any span of one {@code period} may admit up to
+ *     {@code 2 * limit - 1} uses. This smooths usage and costs one compare-and-set per use.</li>
+ *     <li>{@link #fixedWindow(long, Duration) A fixed window} with a hard cap: at most {@code limit} uses in each
+ *     consecutive {@code period}, counted from the first use and reset at the start of each window. For example
+ *     {@code FeatureQuota.fixedWindow(10_000, Duration.ofDays(30))} allows ten thousand calls per 30 days, all of which
+ *     may be spent at once.</li>
+ * </ul>
+ *
+ * @since 1.0.4
+ */
+public final class FeatureQuota {
+    private final long limit;
+
+    private final long periodNanos;
+
+    private final long emissionIntervalNanos;
+
+    private final boolean fixedWindow;
+
+    private FeatureQuota(final long limit, final long periodNanos, final boolean fixedWindow) {
+        this.limit = limit;
+        this.periodNanos = periodNanos;
+        this.emissionIntervalNanos = Math.max(1L, periodNanos / limit);
+        this.fixedWindow = fixedWindow;
+    }
+
+    /**
+     * Creates a rate limit of {@code limit} uses per period, with a burst capacity of {@code limit} uses.
+     *
+     * @param limit  The number of uses earned per period, and the largest burst
+     * @param period The period
+     * @return the quota.
+     */
+    public static FeatureQuota of(final long limit, final Duration period) {
+        return new FeatureQuota(limit, FeatureQuota.getPeriodNanos(limit, period), false);
+    }
+
+    /**
+     * Creates a quota of at most {@code limit} uses in each consecutive window of the given length.
+     *
+     * @param limit  The number of uses allowed per window
+     * @param period The length of the window
+     * @return the quota.
+     */
+    public static FeatureQuota fixedWindow(final long limit, final Duration period) {
+        return new FeatureQuota(limit, FeatureQuota.getPeriodNanos(limit, period), true);
+    }
+
+    private static long getPeriodNanos(final long limit, final Duration period) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Parameter limit must be positive.");
+        }
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Parameter period must be a positive duration.");
+        }
+        return period.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : period.toNanos();
+    }
+
+    public long getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Indicates whether this quota caps the uses in fixed windows rather than limiting their rate.
+     *
+     * @return {@code true} for a fixed window quota, {@code false} for a rate limit.
+     */
+    public boolean isFixedWindow() {
+        return this.fixedWindow;
+    }
+
+    /**
+     * Returns the length of the period, or of the window, in nanoseconds.
+     */
+    long getPeriodNanos() {
+        return this.periodNanos;
+    }
+
+    /**
+     * Returns the time it takes to earn back one use.
+     */
+    long getEmissionIntervalNanos() {
+        return this.emissionIntervalNanos;
+    }
+
+    /**
+     * Returns how far ahead of the current time the bucket's theoretical arrival time may run, that is, the burst
+     * that the quota tolerates.
+     */
+    long getToleranceNanos() {
+        final long tolerance = this.emissionIntervalNanos * (this.limit - 1);
+        return tolerance / this.emissionIntervalNanos == this.limit - 1 ? tolerance : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * FeatureRegistry.java from LicenseManager modified Monday, October 19, 2026 15:24:03 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns feature names to dense integer ids, starting at 0, so that the features of a {@link License} and the
+ * features requested in a check can be compared as bitsets (see {@link FeatureSet}). Ids are assigned when a
+ * {@link FeatureSet} is created with a name not seen before, and are never reused or removed. Feature names read from
+ * licenses are only looked up, so licenses from untrusted sources cannot grow the registry. The registry is meant for
+ * a product's fixed catalogue of feature names, not for arbitrary user input, and holds at most
+ * {@value #MAXIMUM_SIZE} names.
+ *
+ * @since 1.0.4
+ */
+public final class FeatureRegistry {
+    /**
+     * The largest number of feature names the registry holds, which bounds feature set bitsets at 8 KiB.
+     */
+    public static final int MAXIMUM_SIZE = 1 << 16;
+
+    private static final FeatureRegistry INSTANCE = new FeatureRegistry();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private FeatureRegistry() {
+    }
+
+    /**
+     * Returns the registry shared by all licenses.
+     *
+     * @return the registry instance.
+     */
+    public static FeatureRegistry getInstance() {
+        return FeatureRegistry.INSTANCE;
+    }
+
+    /**
+     * Returns the id of the feature name, assigning the next free id if the name has not been seen before.
+     *
+     * @param featureName The feature name
+     * @return the feature id.
+     * @throws IllegalStateException if the name is new and the registry already holds {@link #MAXIMUM_SIZE} names.
+     */
+    public int register(final String featureName) {
+        if (featureName == null) {
+            throw new IllegalArgumentException("Parameter featureName must not be null.");
+        }
+        final Integer id = this.ids.get(featureName);
+        if (id != null) {
+            return id;
+        }
+        // Assigning under the map's lock keeps the ids dense even when threads race on the same new name.
+        synchronized (this.ids) {
+            return this.ids.computeIfAbsent(featureName, name -> {
+                if (this.ids.size() >= MAXIMUM_SIZE) {
+                    throw new IllegalStateException("The feature registry is full; it holds at most " +
+                            MAXIMUM_SIZE + " feature names.");
+                }
+                return this.ids.size();
+            });
+        }
+    }
+
+    /**
+     * Returns the id of the feature name, without registering it.
+     *
+     * @param featureName The feature name
+     * @return the feature id, or -1 if the name has not been registered.
+     */
+    public int getId(final String featureName) {
+        final Integer id = featureName == null ? null : this.ids.get(featureName);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the number of registered feature names, which is also the next id to be assigned.
+     *
+     * @return the number of registered names.
+     */
+    public int size() {
+        return this.ids.size();
+    }
+}
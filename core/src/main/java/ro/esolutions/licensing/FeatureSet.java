@@ -0,0 +1,130 @@
+/*
+ * FeatureSet.java from LicenseManager modified Monday, October 19, 2026 15:31:47 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.Arrays;
+
+/**
+ * A pre-resolved set of feature names, stored as a bitset of {@link FeatureRegistry} ids. Resolve the feature sets an
+ * application checks once, for example in static fields, and pass them to
+ * {@link License#hasLicenseForAllFeatures(FeatureSet)} or {@link License#hasLicenseForAnyFeature(FeatureSet)}; each
+ * check is then a handful of bitwise operations against the license's bitset of enabled features, with no string
+ * hashing or comparison.
+ *
+ * @since 1.0.4
+ */
+public final class FeatureSet {
+    private final long[] bits;
+
+    private final String[] featureNames;
+
+    private FeatureSet(final long[] bits, final String[] featureNames) {
+        this.bits = bits;
+        this.featureNames = featureNames;
+    }
+
+    /**
+     * Resolves the feature names into a feature set, registering any names the {@link FeatureRegistry} has not seen.
+     *
+     * @param featureNames The feature names
+     * @return the feature set.
+     * @throws IllegalStateException if the registry is full and cannot register a new name.
+     */
+    public static FeatureSet of(final String... featureNames) {
+        if (featureNames == null) {
+            throw new IllegalArgumentException("Parameter featureNames must not be null.");
+        }
+        final FeatureRegistry registry = FeatureRegistry.getInstance();
+        final int[] ids = new int[featureNames.length];
+        int maximumId = -1;
+        for (int i = 0; i < featureNames.length; i++) {
+            ids[i] = registry.register(featureNames[i]);
+            maximumId = Math.max(maximumId, ids[i]);
+        }
+
+        final long[] bits = new long[(maximumId >> 6) + 1];
+        for (final int id : ids) {
+            bits[id >> 6] |= 1L << id;
+        }
+        return new FeatureSet(bits, featureNames.clone());
+    }
+
+    /**
+     * Indicates whether every feature in this set is enabled in the bitset.
+     *
+     * @param enabled The bitset of enabled feature ids
+     * @return {@code true} if all features are enabled (or the set is empty), {@code false} otherwise.
+     */
+    boolean isSubsetOf(final long[] enabled) {
+        for (int i = 0; i < this.bits.length; i++) {
+            if ((this.bits[i] & ~(i < enabled.length ? enabled[i] : 0L)) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether any feature in this set is enabled in the bitset.
+     *
+     * @param enabled The bitset of enabled feature ids
+     * @return {@code true} if at least one feature is enabled, {@code false} otherwise.
+     */
+    boolean intersects(final long[] enabled) {
+        for (int i = 0, length = Math.min(this.bits.length, enabled.length); i < length; i++) {
+            if ((this.bits[i] & enabled[i]) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the feature names this set was resolved from. The returned array is shared and must not be modified.
+     *
+     * @return the feature names.
+     */
+    String[] getFeatureNames() {
+        return this.featureNames;
+    }
+
+    /**
+     * Returns the number of feature names this set was resolved from.
+     *
+     * @return the number of feature names.
+     */
+    public int size() {
+        return this.featureNames.length;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        return object == this || (object instanceof FeatureSet && Arrays.equals(this.bits, ((FeatureSet) object).bits));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.bits);
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureSet" + Arrays.toString(this.featureNames);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * FeatureUsage.java from LicenseManager modified Monday, October 19, 2026 19:12:04 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+/**
+ * The number of times a feature was used by a context during one flush period of a {@link FeatureMeter}.
+ *
+ * @since 1.0.4
+ */
+public final class FeatureUsage {
+    private final Object context;
+
+    private final String featureName;
+
+    private final long count;
+
+    FeatureUsage(final Object context, final String featureName, final long count) {
+        this.context = context;
+        this.featureName = featureName;
+        this.count = count;
+    }
+
+    public Object getContext() {
+        return this.context;
+    }
+
+    public String getFeatureName() {
+        return this.featureName;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureUsage[context=" + this.context + ", featureName=" + this.featureName + ", count=" + this.count +
+                "]";
+    }
+}
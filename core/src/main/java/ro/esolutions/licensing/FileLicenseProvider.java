@@ -18,13 +18,17 @@
 
 package ro.esolutions.licensing;
 
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.FileUtils;
+import ro.esolutions.licensing.exception.ObjectDeserializationException;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * A default implementation of the {@link LicenseProvider} that assumes the binary data from the signed and serialized
@@ -40,6 +44,18 @@ import java.net.URL;
  * @since 1.0.0
  */
 public class FileLicenseProvider extends DeserializingLicenseProvider {
+    private static final byte[] BASE64_VALUES = new byte[256];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+        BASE64_VALUES['+'] = BASE64_VALUES['-'] = 62;
+        BASE64_VALUES['/'] = BASE64_VALUES['_'] = 63;
+    }
+
     protected ClassLoader classLoader;
 
     private String filePrefix = "";
@@ -77,10 +93,16 @@ public class FileLicenseProvider extends DeserializingLicenseProvider {
 
     /**
      * Gets the stored, still-encrypted, still-serialized license content and signature from the persistence store.
-     * Returns null (not an empty array) if no license is found.
+     * Returns null (not an empty array) if no license is found. Files larger than the
+     * {@link #setMaximumLicenseSize(int) maximum license size} are rejected without being read.<br>
+     * <br>
+     * The file is read through a {@link FileChannel} straight into the returned array. Base64 files are decoded on
+     * the fly into an array of exactly the decoded size. The file is never memory mapped, because a mapping is only
+     * released when it is garbage collected and keeps the file locked on some platforms until then.
      *
      * @param context The context for which to get the license
      * @return the signed license data.
+     * @throws ObjectDeserializationException if the license file is too large.
      */
     @Override
     protected byte[] getLicenseData(final Object context) {
@@ -88,22 +110,89 @@ public class FileLicenseProvider extends DeserializingLicenseProvider {
             throw new IllegalArgumentException("Argument context cannot be null.");
         }
         final File file = this.getLicenseFile(context);
-        if (file == null || !file.exists() || !file.canRead()) {
+        if (file == null) {
             return null;
         }
-        try {
-            byte[] data = FileUtils.readFileToByteArray(file);
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            // Base64 text takes four characters for every three bytes, plus line breaks.
+            final long maximumFileSize = this.isBase64Encoded() ?
+                    2L * this.getMaximumLicenseSize() : this.getMaximumLicenseSize();
+            if (size > maximumFileSize) {
+                throw new ObjectDeserializationException("The license file [" + file.getPath() + "] is " + size +
+                        " bytes long, which exceeds the maximum of " + maximumFileSize + " bytes.");
+            }
 
-            if (this.isBase64Encoded()) {
-                data = Base64.decodeBase64(data);
+            if (!this.isBase64Encoded()) {
+                final byte[] data = new byte[(int) size];
+                FileLicenseProvider.readFully(channel, ByteBuffer.wrap(data));
+                return data;
             }
 
-            return data;
+            final ByteBuffer encoded = ByteBuffer.allocate((int) size);
+            FileLicenseProvider.readFully(channel, encoded);
+            encoded.flip();
+            return FileLicenseProvider.decodeBase64(encoded);
         } catch (final IOException e) {
+            // includes NoSuchFileException and AccessDeniedException, which replace the exists() and canRead() checks
             return null;
         }
     }
 
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The license file was truncated while reading it.");
+            }
+        }
+    }
+
+    /**
+     * Decodes Base64 text straight into a byte array of exactly the decoded size. Like the Commons Codec decoder
+     * used previously, this accepts both the standard and the URL-safe alphabet, skips characters outside the alphabet
+     * (such as line breaks) and stops at the first padding character.
+     *
+     * @param encoded The Base64 text
+     * @return the decoded bytes.
+     */
+    private static byte[] decodeBase64(final ByteBuffer encoded) {
+        final int start = encoded.position();
+        final int end = encoded.limit();
+
+        int characters = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = encoded.get(i);
+            if (b == '=') {
+                break;
+            }
+            if (BASE64_VALUES[b & 0xFF] >= 0) {
+                characters++;
+            }
+        }
+
+        final int remainder = characters & 3;
+        final byte[] decoded = new byte[(characters >>> 2) * 3 + (remainder == 3 ? 2 : remainder == 2 ? 1 : 0)];
+        int bits = 0;
+        int bitCount = 0;
+        int position = 0;
+        for (int i = start; i < end && position < decoded.length; i++) {
+            final byte b = encoded.get(i);
+            if (b == '=') {
+                break;
+            }
+            final int value = BASE64_VALUES[b & 0xFF];
+            if (value >= 0) {
+                bits = (bits << 6) | value;
+                bitCount += 6;
+                if (bitCount >= 8) {
+                    bitCount -= 8;
+                    decoded[position++] = (byte) (bits >>> bitCount);
+                }
+            }
+        }
+        return decoded;
+    }
+
     /**
      * Gets the license file handle. Returns null if if no license is found, but if a license is found, this may
      * return a file handle to a non-existent file. So, the file should be checked for existence and readability.
@@ -0,0 +1,218 @@
+/*
+ * FileSeatStore.java from LicenseManager modified Tuesday, October 20, 2026 00:07:15 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * A {@link SeatStore} that keeps the reservations in a properties file guarded by a file lock, so that several
+ * processes on the same host (or sharing a file system that supports locks) enforce the same seat limits. Every
+ * operation reads and rewrites the whole file, which is fine as a stand-in for a real shared store in tests and small
+ * installations but not for production clusters.<br>
+ * <br>
+ * The file holds the expiry time of each holder and the seats each holder reserved per context and feature. Every
+ * operation first removes the holders that have expired together with their reservations.
+ *
+ * @since 1.0.4
+ */
+public class FileSeatStore implements SeatStore {
+    /**
+     * Separates the parts of the property names; holder identifiers must not contain it.
+     */
+    private static final char SEPARATOR = (char) 0x1E;
+
+    private static final String HOLDER_PREFIX = "holder" + SEPARATOR;
+
+    private static final String RESERVATION_PREFIX = "seats" + SEPARATOR;
+
+    private final File file;
+
+    /**
+     * Constructs a store backed by the given file, which is created when first needed.
+     *
+     * @param file The file holding the reservations
+     */
+    public FileSeatStore(final File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Parameter file must not be null.");
+        }
+        this.file = file;
+    }
+
+    @Override
+    public int reserve(final String holder, final String context, final String featureName, final int requested,
+                       final int limit, final long ttlInMilliseconds) {
+        final String holderKey = FileSeatStore.getHolderKey(holder);
+        final String key = SeatKeys.getKey(context, featureName);
+        final long now = System.currentTimeMillis();
+        return this.update(now, reservations -> {
+            FileSeatStore.extend(reservations, holderKey, now + ttlInMilliseconds);
+            final int current = FileSeatStore.getTotal(reservations, key);
+            final int granted = Math.max(0, Math.min(requested, limit - current));
+            if (granted > 0) {
+                final String reservationKey = FileSeatStore.getReservationKey(holder, key);
+                reservations.setProperty(reservationKey,
+                        Integer.toString(FileSeatStore.getCount(reservations, reservationKey) + granted));
+            }
+            return granted;
+        });
+    }
+
+    @Override
+    public void release(final String holder, final String context, final String featureName, final int count) {
+        final String reservationKey = FileSeatStore.getReservationKey(holder, SeatKeys.getKey(context, featureName));
+        this.update(System.currentTimeMillis(), reservations -> {
+            final int remaining = FileSeatStore.getCount(reservations, reservationKey) - count;
+            if (remaining > 0) {
+                reservations.setProperty(reservationKey, Integer.toString(remaining));
+            } else {
+                reservations.remove(reservationKey);
+            }
+            return remaining;
+        });
+    }
+
+    @Override
+    public boolean renew(final String holder, final long ttlInMilliseconds) {
+        final String holderKey = FileSeatStore.getHolderKey(holder);
+        final long now = System.currentTimeMillis();
+        return this.update(now, reservations -> {
+            if (reservations.getProperty(holderKey) == null) {
+                return 0;
+            }
+            FileSeatStore.extend(reservations, holderKey, now + ttlInMilliseconds);
+            return 1;
+        }) == 1;
+    }
+
+    @Override
+    public int getReserved(final String context, final String featureName) {
+        final String key = SeatKeys.getKey(context, featureName);
+        return this.update(System.currentTimeMillis(), reservations -> FileSeatStore.getTotal(reservations, key));
+    }
+
+    private static String getHolderKey(final String holder) {
+        if (holder == null) {
+            throw new IllegalArgumentException("Parameter holder must not be null.");
+        }
+        if (holder.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Parameter holder must not contain the record separator character.");
+        }
+        return HOLDER_PREFIX + holder;
+    }
+
+    private static String getReservationKey(final String holder, final String key) {
+        FileSeatStore.getHolderKey(holder);
+        return RESERVATION_PREFIX + holder + SEPARATOR + key;
+    }
+
+    private static void extend(final Properties reservations, final String holderKey, final long expiresAt) {
+        final String current = reservations.getProperty(holderKey);
+        if (current == null || Long.parseLong(current) < expiresAt) {
+            reservations.setProperty(holderKey, Long.toString(expiresAt));
+        }
+    }
+
+    private static int getCount(final Properties reservations, final String key) {
+        final String count = reservations.getProperty(key);
+        return count == null ? 0 : Integer.parseInt(count);
+    }
+
+    /**
+     * Sums the seats reserved by all holders for a context and feature.
+     */
+    private static int getTotal(final Properties reservations, final String key) {
+        int total = 0;
+        for (final String name : reservations.stringPropertyNames()) {
+            if (name.startsWith(RESERVATION_PREFIX) &&
+                    name.indexOf(SEPARATOR, RESERVATION_PREFIX.length()) == name.length() - key.length() - 1 &&
+                    name.endsWith(key)) {
+                total += FileSeatStore.getCount(reservations, name);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Removes the holders that have expired, and the reservations of holders that have expired or are unknown.
+     */
+    private static void reclaimExpired(final Properties reservations, final long now) {
+        for (final String name : reservations.stringPropertyNames()) {
+            if (name.startsWith(HOLDER_PREFIX) && Long.parseLong(reservations.getProperty(name)) <= now) {
+                reservations.remove(name);
+            }
+        }
+        for (final String name : reservations.stringPropertyNames()) {
+            if (name.startsWith(RESERVATION_PREFIX)) {
+                final int end = name.indexOf(SEPARATOR, RESERVATION_PREFIX.length());
+                if (end < 0 || reservations.getProperty(HOLDER_PREFIX +
+                        name.substring(RESERVATION_PREFIX.length(), end)) == null) {
+                    reservations.remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the reservations under an exclusive lock, reclaims those of expired holders, applies the operation and
+     * writes them back if they changed. File locks are held per process, so threads of this process are serialized on
+     * this store first.
+     */
+    private synchronized int update(final long now, final Function<Properties, Integer> operation) {
+        try (final FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final FileLock lock = channel.lock();
+            try {
+                final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // read the whole file
+                }
+                final Properties reservations = new Properties();
+                reservations.load(new ByteArrayInputStream(buffer.array(), 0, buffer.position()));
+                final Properties original = (Properties) reservations.clone();
+
+                FileSeatStore.reclaimExpired(reservations, now);
+                final int result = operation.apply(reservations);
+
+                if (!reservations.equals(original)) {
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    reservations.store(output, null);
+                    channel.truncate(0);
+                    channel.write(ByteBuffer.wrap(output.toByteArray()), 0);
+                    channel.force(false);
+                }
+                return result;
+            } finally {
+                lock.release();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not update the seat store [" + this.file.getPath() + "].", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * InMemorySeatStore.java from LicenseManager modified Monday, October 19, 2026 23:59:47 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The reference implementation of {@link SeatStore}, which keeps the reservations in memory. It enforces seat limits
+ * within a single process only, which makes it suitable for single-node deployments and tests, and as a model for
+ * implementations backed by a shared database or cache.<br>
+ * <br>
+ * The reservations of each context and feature are guarded by their own lock. Expired holders are removed whenever
+ * seats are reserved, and their reservations are reclaimed whenever those of their context and feature are next read.
+ *
+ * @since 1.0.4
+ */
+public class InMemorySeatStore implements SeatStore {
+    private final ConcurrentHashMap<String, Holder> holders = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Reservations> reservations = new ConcurrentHashMap<>();
+
+    @Override
+    public int reserve(final String holder, final String context, final String featureName, final int requested,
+                       final int limit, final long ttlInMilliseconds) {
+        if (holder == null) {
+            throw new IllegalArgumentException("Parameter holder must not be null.");
+        }
+        final long now = System.currentTimeMillis();
+        this.removeExpiredHolders(now);
+        // A holder that has expired comes back as a new life, so its reclaimed reservations are not revived.
+        final Holder life = this.holders.compute(holder, (id, current) -> current != null && current.expiresAt > now ?
+                current.extend(now + ttlInMilliseconds) : new Holder(id, now + ttlInMilliseconds));
+
+        final Reservations reservations = this.reservations.computeIfAbsent(SeatKeys.getKey(context, featureName),
+                key -> new Reservations());
+        synchronized (reservations) {
+            final int granted = Math.min(requested, limit - reservations.reclaimExpired(now));
+            if (granted <= 0) {
+                return 0;
+            }
+            reservations.counts.merge(life, granted, Integer::sum);
+            reservations.total += granted;
+            return granted;
+        }
+    }
+
+    @Override
+    public void release(final String holder, final String context, final String featureName, final int count) {
+        if (holder == null) {
+            throw new IllegalArgumentException("Parameter holder must not be null.");
+        }
+        final Reservations reservations = this.reservations.get(SeatKeys.getKey(context, featureName));
+        final Holder life = this.holders.get(holder);
+        if (reservations == null || life == null) {
+            return;
+        }
+        synchronized (reservations) {
+            final Integer reserved = reservations.counts.get(life);
+            if (reserved != null) {
+                final int returned = Math.min(reserved, count);
+                if (reserved > returned) {
+                    reservations.counts.put(life, reserved - returned);
+                } else {
+                    reservations.counts.remove(life);
+                }
+                reservations.total -= returned;
+            }
+        }
+    }
+
+    @Override
+    public boolean renew(final String holder, final long ttlInMilliseconds) {
+        if (holder == null) {
+            throw new IllegalArgumentException("Parameter holder must not be null.");
+        }
+        final long now = System.currentTimeMillis();
+        return this.holders.computeIfPresent(holder, (id, current) -> current.expiresAt > now ?
+                current.extend(now + ttlInMilliseconds) : null) != null;
+    }
+
+    @Override
+    public int getReserved(final String context, final String featureName) {
+        final Reservations reservations = this.reservations.get(SeatKeys.getKey(context, featureName));
+        if (reservations == null) {
+            return 0;
+        }
+        synchronized (reservations) {
+            return reservations.reclaimExpired(System.currentTimeMillis());
+        }
+    }
+
+    private void removeExpiredHolders(final long now) {
+        for (final Holder holder : this.holders.values()) {
+            if (holder.expiresAt <= now) {
+                this.holders.computeIfPresent(holder.id, (id, current) -> current.expiresAt > now ? current : null);
+            }
+        }
+    }
+
+    /**
+     * One life of a holder. Reservations refer to the life they were made in, so once a holder has expired, its
+     * reservations no longer count even if the same identifier reserves seats again.
+     */
+    private static final class Holder {
+        private final String id;
+
+        private volatile long expiresAt;
+
+        private Holder(final String id, final long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+
+        private Holder extend(final long expiresAt) {
+            this.expiresAt = Math.max(this.expiresAt, expiresAt);
+            return this;
+        }
+    }
+
+    /**
+     * The seats reserved for one context and feature, per holder life.
+     */
+    private final class Reservations {
+        private final Map<Holder, Integer> counts = new HashMap<>();
+
+        private int total;
+
+        /**
+         * Drops the reservations of holder lives that have expired.
+         *
+         * @return the number of seats still reserved.
+         */
+        private int reclaimExpired(final long now) {
+            for (final Iterator<Map.Entry<Holder, Integer>> i = this.counts.entrySet().iterator(); i.hasNext(); ) {
+                final Map.Entry<Holder, Integer> entry = i.next();
+                final Holder life = entry.getKey();
+                if (life.expiresAt <= now || InMemorySeatStore.this.holders.get(life.id) != life) {
+                    this.total -= entry.getValue();
+                    i.remove();
+                }
+            }
+            return this.total;
+        }
+    }
+}
@@ -19,14 +19,13 @@ package ro.esolutions.licensing;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
-import org.apache.commons.lang.SerializationUtils;
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
+import ro.esolutions.licensing.exception.ObjectDeserializationException;
 import ro.esolutions.licensing.immutable.ImmutableLinkedHashSet;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -42,7 +41,30 @@ public final class License implements Serializable, Cloneable {
     private final Instant goodAfterDate;
     private final Instant goodBeforeDate;
     private final int seats;
-    private final ImmutableLinkedHashSet<Feature> features;
+    private volatile ImmutableLinkedHashSet<Feature> features;
+
+    /**
+     * The validity bounds in milliseconds since the epoch, so that validation compares primitives instead of
+     * {@link Instant}s.
+     */
+    private final transient long goodAfterEpochMilli;
+    private final transient long goodBeforeEpochMilli;
+
+    /**
+     * The still-encoded feature table of a license read by {@link LicenseCodec}, decoded on first access.
+     */
+    private transient byte[] encodedFeatures;
+
+    private transient int encodedFeatureCount;
+
+    private transient volatile FeatureIndex featureIndex;
+
+    /**
+     * The cached hash code, or zero if it has not been computed yet. It is computed on first use rather than at
+     * construction so that hashing does not defeat lazy feature decoding; like {@link String}, a race at worst computes
+     * the same value twice.
+     */
+    private transient int hashCode;
 
     private License(final License.Builder builder) {
         this.productKey = Strings.nullToEmpty(builder.productKey);
@@ -53,15 +75,106 @@ public final class License implements Serializable, Cloneable {
         this.goodAfterDate = builder.goodAfterDate;
         this.goodBeforeDate = builder.goodBeforeDate;
         this.seats = builder.seats;
-        this.features = new ImmutableLinkedHashSet<>(builder.features);
+        this.goodAfterEpochMilli = builder.goodAfterDate == null ?
+                Long.MIN_VALUE : Feature.toEpochMilli(builder.goodAfterDate);
+        this.goodBeforeEpochMilli = builder.goodBeforeDate == null ?
+                Long.MAX_VALUE : Feature.toEpochMilli(builder.goodBeforeDate);
+        this.features = ImmutableLinkedHashSet.copyOf(builder.features);
     }
 
+    /**
+     * Creates a license whose header fields come from the builder and whose features are decoded from the encoded
+     * feature table the first time they are needed.
+     */
+    License(final License.Builder builder, final byte[] encodedFeatures, final int encodedFeatureCount) {
+        this.productKey = Strings.nullToEmpty(builder.productKey);
+        this.holder = Strings.nullToEmpty(builder.holder);
+        this.issuer = Strings.nullToEmpty(builder.issuer);
+        this.subject = Strings.nullToEmpty(builder.subject);
+        this.issueDate = builder.issueDate;
+        this.goodAfterDate = builder.goodAfterDate;
+        this.goodBeforeDate = builder.goodBeforeDate;
+        this.seats = builder.seats;
+        this.goodAfterEpochMilli = builder.goodAfterDate == null ?
+                Long.MIN_VALUE : Feature.toEpochMilli(builder.goodAfterDate);
+        this.goodBeforeEpochMilli = builder.goodBeforeDate == null ?
+                Long.MAX_VALUE : Feature.toEpochMilli(builder.goodBeforeDate);
+        this.encodedFeatures = encodedFeatures;
+        this.encodedFeatureCount = encodedFeatureCount;
+    }
+
+    private ImmutableLinkedHashSet<Feature> features() {
+        ImmutableLinkedHashSet<Feature> features = this.features;
+        if (features == null) {
+            synchronized (this) {
+                features = this.features;
+                if (features == null) {
+                    features = ImmutableLinkedHashSet.copyOf(
+                            LicenseCodec.decodeFeatures(this.encodedFeatures, this.encodedFeatureCount)
+                    );
+                    this.features = features;
+                    this.encodedFeatures = null;
+                }
+            }
+        }
+        return features;
+    }
+
+    private FeatureIndex featureIndex() {
+        FeatureIndex featureIndex = this.featureIndex;
+        if (featureIndex == null) {
+            // Building the index twice in a race is harmless; both copies are identical and immutable.
+            featureIndex = new FeatureIndex(this.features().toArray(new Feature[0]));
+            this.featureIndex = featureIndex;
+        }
+        return featureIndex;
+    }
+
+    /**
+     * Serializes this license into the compact binary format read by {@link #deserialize(byte[])}.
+     *
+     * @return the serialized license.
+     */
     public final byte[] serialize() {
-        return SerializationUtils.serialize(this);
+        return LicenseCodec.encode(this);
     }
 
-    static License deserialize(byte[] data) {
-        return (License) SerializationUtils.deserialize(data);
+    /**
+     * Serializes this license into the compact binary format read by {@link #deserialize(byte[])}, optionally
+     * compressing it. Compression is only applied if it makes the result smaller.
+     *
+     * @param compress Whether to compress the serialized license
+     * @return the serialized license.
+     */
+    public final byte[] serialize(final boolean compress) {
+        return LicenseCodec.encode(this, compress);
+    }
+
+    /**
+     * Deserializes a license written by {@link #serialize()}. Licenses written with Java object serialization by
+     * earlier versions are recognized and still read, through the filtered {@link ObjectSerializer}.
+     *
+     * @param data The serialized license
+     * @return the deserialized license.
+     * @throws ObjectDeserializationException if the data is not a valid serialized license.
+     */
+    static License deserialize(byte[] data) throws ObjectDeserializationException {
+        return License.deserialize(data, ObjectSerializer.DEFAULT_MAXIMUM_BYTES);
+    }
+
+    /**
+     * Deserializes a license written by {@link #serialize()} or {@link #serialize(boolean)}, refusing compressed
+     * licenses that would decompress to more than the maximum size.
+     *
+     * @param data        The serialized license
+     * @param maximumSize The maximum size of the serialized license, after decompression
+     * @return the deserialized license.
+     * @throws ObjectDeserializationException if the data is not a valid serialized license or is too large.
+     */
+    static License deserialize(final byte[] data, final int maximumSize) throws ObjectDeserializationException {
+        return LicenseCodec.isLegacy(data) ?
+                new ObjectSerializer().readObject(License.class, data, maximumSize) :
+                LicenseCodec.decode(data, maximumSize);
     }
 
     public final String getProductKey() {
@@ -92,55 +205,217 @@ public final class License implements Serializable, Cloneable {
         return this.goodBeforeDate;
     }
 
+    /**
+     * Returns the date on which the license takes effect, in milliseconds since the epoch ({@link Long#MIN_VALUE} if
+     * it has no such date).
+     *
+     * @return the start of the validity period.
+     */
+    public final long getGoodAfterEpochMilli() {
+        return this.goodAfterEpochMilli;
+    }
+
+    /**
+     * Returns the date on which the license expires, in milliseconds since the epoch ({@link Long#MAX_VALUE} if it
+     * never expires).
+     *
+     * @return the end of the validity period.
+     */
+    public final long getGoodBeforeEpochMilli() {
+        return this.goodBeforeEpochMilli;
+    }
+
     public final int getSeats() {
         return this.seats;
     }
 
+    /**
+     * Returns the features of this license. The returned set is the license's own immutable instance, not a copy, so
+     * this method is cheap enough to call on every request. Like all immutable collections, it cannot be modified and
+     * detects modification through reflection.
+     *
+     * @return the features of this license.
+     */
     public final ImmutableLinkedHashSet<Feature> getFeatures() {
-        return this.features.clone();
+        return this.features();
+    }
+
+    /**
+     * Returns the number of features in this license, without decoding the features if they have not been needed yet.
+     *
+     * @return the number of features.
+     */
+    public final int featureCount() {
+        final ImmutableLinkedHashSet<Feature> features = this.features;
+        return features == null ? this.encodedFeatureCount : features.size();
+    }
+
+    /**
+     * Returns the feature at the given position, in the order the features were added to the license.
+     *
+     * @param index The position of the feature, from zero to {@link #featureCount()} exclusive
+     * @return the feature at the position.
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the feature count.
+     */
+    public final Feature getFeature(final int index) {
+        final ImmutableLinkedHashSet<Feature> features = this.features();
+        return features.get(Objects.checkIndex(index, features.size()));
     }
 
     public final boolean hasLicenseForFeature(final Feature feature) {
         return hasLicenseForFeature(feature.getName());
     }
 
+    /**
+     * Checks whether the license grants the feature and the grant has not expired. A feature is granted by a feature
+     * with exactly the same name or, failing that, by the most specific wildcard grant covering it: a license feature
+     * named {@code reports.*} grants {@code reports.export} and {@code reports.export.pdf}, and one named {@code *}
+     * grants every feature.
+     *
+     * @param featureName The name of the feature to check
+     * @return {@code true} if the feature is granted and not expired, {@code false} otherwise.
+     */
     public final boolean hasLicenseForFeature(final String featureName) {
-        return this.features.stream().filter(f -> Objects.equals(f.getName(), featureName))
-                .findAny()
-                .map(feature -> feature.getGoodBeforeDate() == null || feature.getGoodBeforeDate().isAfter(Instant.now()))
-                .orElse(false);
+        return License.isActive(this.featureIndex().find(featureName), System.currentTimeMillis());
+    }
+
+    /**
+     * Checks whether any feature in the pre-resolved feature set is licensed and not expired.
+     *
+     * @param featureSet The features to check
+     * @return {@code true} if at least one of the features is licensed, {@code false} otherwise.
+     */
+    public final boolean hasLicenseForAnyFeature(final FeatureSet featureSet) {
+        final FeatureIndex featureIndex = this.featureIndex();
+        return featureIndex.hasWildcards() ?
+                this.hasLicenseForAnyFeature(featureSet.getFeatureNames()) :
+                featureSet.intersects(featureIndex.getEnabledBits(System.currentTimeMillis()));
+    }
+
+    /**
+     * Checks whether every feature in the pre-resolved feature set is licensed and not expired.
+     *
+     * @param featureSet The features to check
+     * @return {@code true} if all of the features are licensed, {@code false} otherwise.
+     */
+    public final boolean hasLicenseForAllFeatures(final FeatureSet featureSet) {
+        final FeatureIndex featureIndex = this.featureIndex();
+        return featureIndex.hasWildcards() ?
+                this.hasLicenseForAllFeatures(featureSet.getFeatureNames()) :
+                featureSet.isSubsetOf(featureIndex.getEnabledBits(System.currentTimeMillis()));
     }
 
     public final boolean hasLicenseForAnyFeature(final Feature... features) {
-        return Arrays.stream(features)
-                .map(Feature::getName)
-                .anyMatch(this::hasLicenseForFeature);
+        final FeatureIndex featureIndex = this.featureIndex();
+        final long now = System.currentTimeMillis();
+        for (final Feature feature : features) {
+            if (License.isActive(featureIndex.find(feature.getName()), now)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public final boolean hasLicenseForAnyFeature(final String... featureNames) {
-        return Arrays.stream(featureNames)
-                .anyMatch(this::hasLicenseForFeature);
+        final FeatureIndex featureIndex = this.featureIndex();
+        final long now = System.currentTimeMillis();
+        for (final String featureName : featureNames) {
+            if (License.isActive(featureIndex.find(featureName), now)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public final boolean hasLicenseForAllFeatures(final Feature... features) {
-        return Arrays.stream(features)
-                .map(Feature::getName)
-                .allMatch(this::hasLicenseForFeature);
+        final FeatureIndex featureIndex = this.featureIndex();
+        final long now = System.currentTimeMillis();
+        for (final Feature feature : features) {
+            if (!License.isActive(featureIndex.find(feature.getName()), now)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public final boolean hasLicenseForAllFeatures(final String... featureNames) {
-        return Arrays.stream(featureNames)
-                .allMatch(this::hasLicenseForFeature);
+        final FeatureIndex featureIndex = this.featureIndex();
+        final long now = System.currentTimeMillis();
+        for (final String featureName : featureNames) {
+            if (!License.isActive(featureIndex.find(featureName), now)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the feature that grants the given name, by exact name or wildcard, whether or not it has expired.
+     *
+     * @param featureName The feature name
+     * @return the granting feature, or {@code null} if the license does not grant the name.
+     */
+    final Feature findFeature(final String featureName) {
+        return this.featureIndex().find(featureName);
+    }
+
+    private static boolean isActive(final Feature feature, final long now) {
+        return feature != null && feature.isActiveAt(now);
     }
 
     @Override
     public final boolean equals(final Object object) {
-        return EqualsBuilder.reflectionEquals(this, object);
+        if (object == this) {
+            return true;
+        }
+        if (!(object instanceof License)) {
+            return false;
+        }
+        final License license = (License) object;
+        if (this.hashCode != 0 && license.hashCode != 0 && this.hashCode != license.hashCode) {
+            return false;
+        }
+        return this.seats == license.seats &&
+                this.productKey.equals(license.productKey) &&
+                this.holder.equals(license.holder) &&
+                this.issuer.equals(license.issuer) &&
+                this.subject.equals(license.subject) &&
+                Objects.equals(this.issueDate, license.issueDate) &&
+                Objects.equals(this.goodAfterDate, license.goodAfterDate) &&
+                Objects.equals(this.goodBeforeDate, license.goodBeforeDate) &&
+                this.features().equals(license.features());
     }
 
     @Override
     public final int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this);
+        int hashCode = this.hashCode;
+        if (hashCode == 0) {
+            hashCode = this.productKey.hashCode();
+            hashCode = 31 * hashCode + this.holder.hashCode();
+            hashCode = 31 * hashCode + this.issuer.hashCode();
+            hashCode = 31 * hashCode + this.subject.hashCode();
+            hashCode = 31 * hashCode + Objects.hashCode(this.issueDate);
+            hashCode = 31 * hashCode + Objects.hashCode(this.goodAfterDate);
+            hashCode = 31 * hashCode + Objects.hashCode(this.goodBeforeDate);
+            hashCode = 31 * hashCode + this.seats;
+            hashCode = 31 * hashCode + this.features().hashCode();
+            this.hashCode = hashCode;
+        }
+        return hashCode;
+    }
+
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        this.features();
+        stream.defaultWriteObject();
+    }
+
+    /**
+     * Rebuilds licenses read with Java object serialization, whose derived fields are not stored.
+     *
+     * @return an equal license with its derived fields computed.
+     */
+    private Object readResolve() {
+        return this.clone();
     }
 
     @Override
@@ -154,7 +429,7 @@ public final class License implements Serializable, Cloneable {
                 .add("validFrom", goodAfterDate)
                 .add("goodBeforeDate", goodBeforeDate)
                 .add("seats", seats)
-                .add("features", features)
+                .add("features", this.features())
                 .toString();
     }
 
@@ -171,7 +446,7 @@ public final class License implements Serializable, Cloneable {
                 .withGoodBefore(this.goodBeforeDate)
                 .withSeats(this.seats);
 
-        features.forEach(builder::withFeature);
+        this.features().forEach(builder::withFeature);
 
         return builder.build();
     }
@@ -0,0 +1,159 @@
+/*
+ * LicenseBundle.java from LicenseManager modified Monday, October 19, 2026 14:06:40 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Describes the license bundle file format, which stores the signed licenses of many contexts in a single file that
+ * {@link BundleLicenseProvider} memory maps and searches without touching the file system again. A bundle is laid
+ * out as follows, with all integers in big-endian order:
+ * <pre>
+ *   magic          4 bytes   'L' 'M' 'L' 'B'
+ *   version        1 byte    1
+ *   reserved       3 bytes   0
+ *   slot count     4 bytes   a power of two
+ *   entry count    4 bytes
+ *   slots          slot count times 16 bytes:
+ *                    key hash       4 bytes
+ *                    key length     4 bytes
+ *                    record offset  8 bytes   (0 marks an empty slot)
+ *   records        for each entry:
+ *                    key            key length UTF-8 bytes
+ *                    data length    4 bytes
+ *                    data           the stored signed license, exactly as a {@link FileLicenseProvider} file holds it
+ * </pre>
+ * The slots form an open-addressing hash table with linear probing, keyed by the UTF-8 bytes of
+ * {@code context.toString()} and filled to at most half capacity, so a lookup usually inspects one slot. Bundles are
+ * written with the {@code LicenseBundleWriter} in the licensor module.
+ *
+ * @since 1.0.4
+ */
+public final class LicenseBundle {
+    static final byte[] MAGIC = {'L', 'M', 'L', 'B'};
+
+    /**
+     * The version of the bundle format written by this release.
+     */
+    public static final byte VERSION_1 = 1;
+
+    /**
+     * The size in bytes of the bundle header.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * The size in bytes of each slot in the index.
+     */
+    public static final int SLOT_SIZE = 16;
+
+    /**
+     * The largest number of licenses a bundle can hold. Its index then has 2<sup>26</sup> slots and takes 1 GiB, which
+     * still leaves the whole bundle addressable by a single memory mapping.
+     */
+    public static final int MAXIMUM_ENTRY_COUNT = 1 << 25;
+
+    /**
+     * Writes the bundle header into the buffer at its current position.
+     *
+     * @param buffer     The buffer to write to
+     * @param slotCount  The number of slots in the index, as returned by {@link #getSlotCount(int)}
+     * @param entryCount The number of licenses in the bundle
+     */
+    public static void writeHeader(final ByteBuffer buffer, final int slotCount, final int entryCount) {
+        buffer.put(MAGIC).put(VERSION_1).put((byte) 0).put((byte) 0).put((byte) 0);
+        buffer.putInt(slotCount).putInt(entryCount);
+    }
+
+    /**
+     * Indicates whether the buffer starts with a license bundle header of a supported version.
+     *
+     * @param buffer The buffer to check
+     * @return {@code true} if the buffer holds a bundle, {@code false} otherwise.
+     */
+    static boolean isBundle(final ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_SIZE && buffer.get(0) == MAGIC[0] && buffer.get(1) == MAGIC[1] &&
+                buffer.get(2) == MAGIC[2] && buffer.get(3) == MAGIC[3] && buffer.get(4) == VERSION_1;
+    }
+
+    /**
+     * Returns the number of index slots for a bundle with the given number of licenses: the smallest power of two that
+     * keeps the index at most half full.
+     *
+     * @param entryCount The number of licenses in the bundle
+     * @return the number of slots.
+     * @throws IllegalArgumentException if the entry count is negative or larger than {@link #MAXIMUM_ENTRY_COUNT}.
+     */
+    public static int getSlotCount(final int entryCount) {
+        if (entryCount < 0 || entryCount > MAXIMUM_ENTRY_COUNT) {
+            throw new IllegalArgumentException("A bundle cannot hold " + entryCount + " licenses; the maximum is " +
+                    MAXIMUM_ENTRY_COUNT + ".");
+        }
+        return Math.max(2, Integer.highestOneBit(Math.max(1, entryCount * 2 - 1)) << 1);
+    }
+
+    /**
+     * Returns the size in bytes of the header and index of a bundle with the given number of slots, computed in
+     * {@code long} so that it cannot overflow.
+     *
+     * @param slotCount The number of slots in the index
+     * @return the offset of the first record.
+     */
+    public static long getIndexSize(final int slotCount) {
+        return HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+    }
+
+    /**
+     * Returns the index key for a license context.
+     *
+     * @param context The context
+     * @return the UTF-8 bytes of the context's string form.
+     */
+    public static byte[] getKey(final Object context) {
+        return context.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hashes an index key (32-bit FNV-1a, finished with the MurmurHash3 mixer so that the low bits, which select the
+     * slot, depend on every byte).
+     *
+     * @param key The index key
+     * @return the key hash.
+     */
+    public static int hash(final byte[] key) {
+        int hash = 0x811C9DC5;
+        for (final byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private LicenseBundle() {
+        throw new RuntimeException("This class cannot be instantiated.");
+    }
+}
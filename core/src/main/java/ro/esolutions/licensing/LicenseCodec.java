@@ -0,0 +1,436 @@
+/*
+ * LicenseCodec.java from LicenseManager modified Monday, October 19, 2026 10:12:41 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import ro.esolutions.licensing.exception.ObjectDeserializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes the binary form of a {@link License}. The format is written by hand instead of with Java object
+ * serialization, so decoding a license does not involve class descriptors, reflection or the internals of the
+ * immutable collections.<br>
+ * <br>
+ * Every encoded license starts with a four byte header: the magic bytes {@code 'L' 'M'}, the format version and a
+ * flags byte. Version 1 then contains the product key, holder, issuer and subject as UTF-8 strings prefixed with
+ * their length plus one (zero marks a null string), the issue, good-after and good-before dates as epoch seconds and
+ * nanoseconds, the seats as a variable-length integer and finally the feature table, prefixed with its feature count
+ * and its length in bytes. The length prefix lets {@link #decode(byte[], int)} decode only the header and keep the feature
+ * table encoded until the features are first used.<br>
+ * <br>
+ * If the {@code 0x01} flag is set, the body that follows the header is compressed with deflate and prefixed with its
+ * uncompressed length, which is checked against a maximum before anything is inflated.<br>
+ * <br>
+ * Licenses serialized with Java object serialization before this format was introduced start with the object stream
+ * magic bytes; {@link #isLegacy(byte[])} recognizes them so that they can still be read.<br>
+ * <br>
+ * Decoded features, and the product key, issuer and subject strings, are interned in weak pools, so that the many
+ * cached licenses of a multi-tenant application share one instance of each distinct value instead of holding copies.
+ * Values that are no longer referenced by any license are collected as usual.
+ *
+ * @since 1.0.4
+ */
+final class LicenseCodec {
+    static final byte VERSION_1 = 1;
+
+    private static final byte MAGIC_0 = 'L';
+
+    private static final byte MAGIC_1 = 'M';
+
+    private static final byte LEGACY_MAGIC_0 = (byte) 0xAC;
+
+    private static final byte LEGACY_MAGIC_1 = (byte) 0xED;
+
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * Flag indicating that everything after the header is a varint with the uncompressed length followed by the
+     * deflated body.
+     */
+    private static final byte FLAG_DEFLATED = 0x01;
+
+    private static final byte INSTANT_NULL = 0;
+
+    private static final byte INSTANT_SECONDS = 1;
+
+    private static final byte INSTANT_SECONDS_AND_NANOS = 2;
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private static final Interner<Feature> FEATURES = Interners.newWeakInterner();
+
+    /**
+     * Indicates whether the data was written with Java object serialization rather than with this codec.
+     *
+     * @param data The encoded license
+     * @return {@code true} if the data is a Java object stream, {@code false} otherwise.
+     */
+    static boolean isLegacy(final byte[] data) {
+        return data.length >= 2 && data[0] == LEGACY_MAGIC_0 && data[1] == LEGACY_MAGIC_1;
+    }
+
+    /**
+     * Encodes the license. If compression is requested, the body is deflated, but only if that makes it smaller.
+     *
+     * @param license  The license to encode
+     * @param compress Whether to compress the body
+     * @return the encoded license.
+     */
+    static byte[] encode(final License license, final boolean compress) {
+        final byte[] encoded = LicenseCodec.encode(license);
+        if (!compress) {
+            return encoded;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(encoded, HEADER_LENGTH, encoded.length - HEADER_LENGTH);
+            deflater.finish();
+
+            final Output output = new Output(encoded.length);
+            output.writeBytes(encoded, 0, HEADER_LENGTH);
+            output.buffer[3] |= FLAG_DEFLATED;
+            output.writeVarLong(encoded.length - HEADER_LENGTH);
+            while (!deflater.finished()) {
+                output.ensureCapacity(256);
+                output.position += deflater.deflate(output.buffer, output.position,
+                        output.buffer.length - output.position);
+            }
+
+            return output.size() < encoded.length ? output.toByteArray() : encoded;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] encode(final License license) {
+        final Output output = new Output(256);
+        output.writeByte(MAGIC_0);
+        output.writeByte(MAGIC_1);
+        output.writeByte(VERSION_1);
+        output.writeByte((byte) 0);
+
+        output.writeString(license.getProductKey());
+        output.writeString(license.getHolder());
+        output.writeString(license.getIssuer());
+        output.writeString(license.getSubject());
+        output.writeInstant(license.getIssueDate());
+        output.writeInstant(license.getGoodAfterDate());
+        output.writeInstant(license.getGoodBeforeDate());
+        output.writeSignedVarLong(license.getSeats());
+
+        final Set<Feature> licenseFeatures = license.getFeatures();
+        final Output features = new Output(32 * licenseFeatures.size());
+        for (final Feature feature : licenseFeatures) {
+            features.writeString(feature.getName());
+            features.writeSignedVarLong(feature.getSeats());
+            features.writeInstant(feature.getGoodBeforeDate());
+        }
+        output.writeVarLong(licenseFeatures.size());
+        output.writeVarLong(features.size());
+        output.writeBytes(features.buffer, 0, features.size());
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes the license, inflating the body first if it is compressed.
+     *
+     * @param data        The encoded license
+     * @param maximumSize The maximum size of the body after decompression
+     * @return the decoded license.
+     * @throws ObjectDeserializationException if the data is malformed or decompresses to more than the maximum size.
+     */
+    static License decode(final byte[] data, final int maximumSize) throws ObjectDeserializationException {
+        if (data.length < HEADER_LENGTH || data[0] != MAGIC_0 || data[1] != MAGIC_1) {
+            throw new ObjectDeserializationException("The license data is not in a recognized format.");
+        }
+        if (data[2] != VERSION_1) {
+            throw new ObjectDeserializationException("The license data format version " + data[2] +
+                    " is not supported.");
+        }
+        if ((data[3] & ~FLAG_DEFLATED) != 0) {
+            throw new ObjectDeserializationException("The license data contains unsupported flags.");
+        }
+
+        final Input input = (data[3] & FLAG_DEFLATED) == 0 ?
+                new Input(data, HEADER_LENGTH, data.length) :
+                LicenseCodec.inflate(data, maximumSize);
+        final License.Builder header = new License.Builder()
+                .withProductKey(LicenseCodec.intern(input.readString()))
+                .withHolder(input.readString())
+                .withIssuer(LicenseCodec.intern(input.readString()))
+                .withSubject(LicenseCodec.intern(input.readString()))
+                .withIssueDate(input.readInstant())
+                .withGoodAfter(input.readInstant())
+                .withGoodBefore(input.readInstant())
+                .withSeats(input.readSignedVarInt());
+
+        final int featureCount = input.readLength();
+        final byte[] featureTable = input.readBytes(input.readLength());
+        input.expectEnd();
+
+        return featureCount == 0 && featureTable.length == 0 ?
+                header.build() :
+                new License(header, featureTable, featureCount);
+    }
+
+    private static Input inflate(final byte[] data, final int maximumSize) {
+        final Input header = new Input(data, HEADER_LENGTH, data.length);
+        final long length = header.readVarLong();
+        if (length < 0 || length > maximumSize) {
+            throw new ObjectDeserializationException("The license data decompresses to " + length +
+                    " bytes, which exceeds the maximum of " + maximumSize + " bytes.");
+        }
+
+        final byte[] body = new byte[(int) length];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, header.position, data.length - header.position);
+            int inflated = 0;
+            while (inflated < body.length && !inflater.finished() && !inflater.needsInput() &&
+                    !inflater.needsDictionary()) {
+                inflated += inflater.inflate(body, inflated, body.length - inflated);
+            }
+            if (inflated != body.length || !inflater.finished() || inflater.getRemaining() != 0) {
+                throw new ObjectDeserializationException("The compressed license data is corrupt.");
+            }
+        } catch (final DataFormatException e) {
+            throw new ObjectDeserializationException("The compressed license data is corrupt.", e);
+        } finally {
+            inflater.end();
+        }
+
+        return new Input(body, 0, body.length);
+    }
+
+    /**
+     * Decodes a feature table that {@link #decode(byte[], int)} left encoded so that it could be decoded lazily.
+     *
+     * @param featureTable The encoded feature table
+     * @param featureCount The number of features in the table
+     * @return the decoded features, in their original order.
+     * @throws ObjectDeserializationException if the feature table is malformed.
+     */
+    static Set<Feature> decodeFeatures(final byte[] featureTable, final int featureCount)
+            throws ObjectDeserializationException {
+        final Input input = new Input(featureTable, 0, featureTable.length);
+        final Set<Feature> features = new LinkedHashSet<>(featureCount * 4 / 3 + 1);
+        for (int i = 0; i < featureCount; i++) {
+            features.add(FEATURES.intern(Feature.of(input.readString())
+                    .seats(input.readSignedVarInt())
+                    .goodBeforeDate(input.readInstant())
+                    .build()));
+        }
+        input.expectEnd();
+
+        return features;
+    }
+
+    private static String intern(final String value) {
+        return value == null ? null : STRINGS.intern(value);
+    }
+
+    /**
+     * A growable byte buffer with the primitive writers used by the format.
+     */
+    private static final class Output {
+        private byte[] buffer;
+
+        private int position;
+
+        Output(final int initialCapacity) {
+            this.buffer = new byte[Math.max(16, initialCapacity)];
+        }
+
+        int size() {
+            return this.position;
+        }
+
+        void writeByte(final byte value) {
+            this.ensureCapacity(1);
+            this.buffer[this.position++] = value;
+        }
+
+        void writeBytes(final byte[] bytes, final int offset, final int length) {
+            this.ensureCapacity(length);
+            System.arraycopy(bytes, offset, this.buffer, this.position, length);
+            this.position += length;
+        }
+
+        void writeVarLong(long value) {
+            this.ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void writeSignedVarLong(final long value) {
+            this.writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(final String value) {
+            if (value == null) {
+                this.writeVarLong(0);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                this.writeVarLong(bytes.length + 1L);
+                this.writeBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        void writeInstant(final Instant value) {
+            if (value == null) {
+                this.writeByte(INSTANT_NULL);
+            } else if (value.getNano() == 0) {
+                this.writeByte(INSTANT_SECONDS);
+                this.writeSignedVarLong(value.getEpochSecond());
+            } else {
+                this.writeByte(INSTANT_SECONDS_AND_NANOS);
+                this.writeSignedVarLong(value.getEpochSecond());
+                this.writeVarLong(value.getNano());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+
+        private void ensureCapacity(final int additional) {
+            if (this.position + additional > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length << 1, this.position + additional));
+            }
+        }
+    }
+
+    /**
+     * A bounds-checked reader over a region of a byte array.
+     */
+    private static final class Input {
+        private final byte[] data;
+
+        private final int limit;
+
+        private int position;
+
+        Input(final byte[] data, final int position, final int limit) {
+            this.data = data;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        byte readByte() {
+            if (this.position >= this.limit) {
+                throw new ObjectDeserializationException("The license data is truncated.");
+            }
+            return this.data[this.position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = this.readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new ObjectDeserializationException("The license data contains a malformed number.");
+        }
+
+        long readSignedVarLong() {
+            final long value = this.readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readSignedVarInt() {
+            final long value = this.readSignedVarLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new ObjectDeserializationException("The license data contains a malformed number.");
+            }
+            return (int) value;
+        }
+
+        int readLength() {
+            final long length = this.readVarLong();
+            if (length < 0 || length > this.limit - this.position) {
+                throw new ObjectDeserializationException("The license data is truncated.");
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            final long encodedLength = this.readVarLong();
+            if (encodedLength == 0) {
+                return null;
+            }
+            if (encodedLength < 0 || encodedLength - 1 > this.limit - this.position) {
+                throw new ObjectDeserializationException("The license data is truncated.");
+            }
+            final int length = (int) (encodedLength - 1);
+            final String value = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            return value;
+        }
+
+        Instant readInstant() {
+            switch (this.readByte()) {
+                case INSTANT_NULL:
+                    return null;
+                case INSTANT_SECONDS:
+                    return this.toInstant(this.readSignedVarLong(), 0);
+                case INSTANT_SECONDS_AND_NANOS:
+                    return this.toInstant(this.readSignedVarLong(), this.readVarLong());
+                default:
+                    throw new ObjectDeserializationException("The license data contains a malformed date.");
+            }
+        }
+
+        byte[] readBytes(final int length) {
+            final byte[] bytes = Arrays.copyOfRange(this.data, this.position, this.position + length);
+            this.position += length;
+            return bytes;
+        }
+
+        void expectEnd() {
+            if (this.position != this.limit) {
+                throw new ObjectDeserializationException("The license data contains unexpected trailing bytes.");
+            }
+        }
+
+        private Instant toInstant(final long epochSecond, final long nanos) {
+            if (nanos < 0 || nanos > 999_999_999 ||
+                    epochSecond < Instant.MIN.getEpochSecond() || epochSecond > Instant.MAX.getEpochSecond()) {
+                throw new ObjectDeserializationException("The license data contains a malformed date.");
+            }
+            return Instant.ofEpochSecond(epochSecond, nanos);
+        }
+    }
+}
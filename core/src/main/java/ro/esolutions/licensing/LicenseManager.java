@@ -26,8 +26,11 @@ import ro.esolutions.licensing.exception.*;
 
 import java.lang.reflect.AnnotatedElement;
 import java.security.PublicKey;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * This class manages licenses in the client application. All interaction with the license manager done from the client
@@ -58,19 +61,32 @@ import java.util.Hashtable;
 public final class LicenseManager {
     private static LicenseManager instance = null;
 
-    private final PublicKeyDataProvider publicKeyDataProvider;
+    /**
+     * The key identifier under which the default public key is registered, used for licenses that carry no key id.
+     */
+    private static final String DEFAULT_KEY_ID = "";
+
+    private final ConcurrentHashMap<String, PublicKeyDataProvider> publicKeyDataProviders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
     private final PasswordProvider publicKeyPasswordProvider;
     private final LicenseProvider licenseProvider;
     private final PasswordProvider licensePasswordProvider;
     private final LicenseValidator licenseValidator;
     private final int cacheTimeInMilliseconds;
+    private final int maximumLicenseSize;
     private final Hashtable<Object, LicenseCacheEntry> licenseCache = new Hashtable<>();
+    private final long seatLeaseTimeInMilliseconds;
+    private final ConcurrentHashMap<SeatKey, SeatPool> seatPools = new ConcurrentHashMap<>();
+    private final SeatAllocator seatAllocator;
+    private final Function<Object, String> seatContextKey;
+    private final FeatureMeter featureMeter;
 
     private LicenseManager() {
         if (LicenseManagerProperties.getLicenseProvider() == null) {
             throw new IllegalArgumentException("Parameter licenseProvider must not be null.");
         }
-        if (LicenseManagerProperties.getPublicKeyDataProvider() == null) {
+        if (LicenseManagerProperties.getPublicKeyDataProvider() == null &&
+                LicenseManagerProperties.getPublicKeyDataProviders().isEmpty()) {
             throw new IllegalArgumentException("Parameter publicKeyDataProvider must not be null.");
         }
         if (LicenseManagerProperties.getPublicKeyPasswordProvider() == null) {
@@ -85,7 +101,10 @@ public final class LicenseManager {
 
         int cacheTimeInMinutes = LicenseManagerProperties.getCacheTimeInMinutes();
 
-        this.publicKeyDataProvider = LicenseManagerProperties.getPublicKeyDataProvider();
+        if (LicenseManagerProperties.getPublicKeyDataProvider() != null) {
+            this.publicKeyDataProviders.put(DEFAULT_KEY_ID, LicenseManagerProperties.getPublicKeyDataProvider());
+        }
+        LicenseManagerProperties.getPublicKeyDataProviders().forEach(this::addPublicKey);
         this.publicKeyPasswordProvider = LicenseManagerProperties.getPublicKeyPasswordProvider();
         this.licenseProvider = LicenseManagerProperties.getLicenseProvider();
         this.licensePasswordProvider = LicenseManagerProperties.getLicensePasswordProvider() == null ?
@@ -93,6 +112,18 @@ public final class LicenseManager {
                 LicenseManagerProperties.getLicensePasswordProvider();
         this.licenseValidator = LicenseManagerProperties.getLicenseValidator();
         this.cacheTimeInMilliseconds = cacheTimeInMinutes < 1 ? (10 * 1000) : (cacheTimeInMinutes * 60 * 1000);
+        this.maximumLicenseSize = LicenseManagerProperties.getMaximumLicenseSize() < 1 ?
+                ObjectSerializer.DEFAULT_MAXIMUM_BYTES : LicenseManagerProperties.getMaximumLicenseSize();
+        this.seatLeaseTimeInMilliseconds = LicenseManagerProperties.getSeatLeaseTimeInSeconds() < 1 ?
+                5 * 60 * 1000L : LicenseManagerProperties.getSeatLeaseTimeInSeconds() * 1000L;
+        this.seatAllocator = LicenseManagerProperties.getSeatStore() == null ? null : new SeatAllocator(
+                LicenseManagerProperties.getSeatStore(), Math.max(1, LicenseManagerProperties.getSeatBlockSize()),
+                Duration.ofSeconds(LicenseManagerProperties.getSeatReservationTimeInSeconds() < 1 ?
+                        60 : LicenseManagerProperties.getSeatReservationTimeInSeconds())
+        );
+        this.seatContextKey = LicenseManagerProperties.getSeatContextKey() == null ?
+                Object::toString : LicenseManagerProperties.getSeatContextKey();
+        this.featureMeter = LicenseManagerProperties.getFeatureMeter();
     }
 
     /**
@@ -141,6 +172,24 @@ public final class LicenseManager {
         return license.hasLicenseForFeature(feature);
     }
 
+    /**
+     * Checks whether the license assigned to the specified context is licensed to use the feature and, if a
+     * {@link LicenseManagerProperties#setFeatureMeter(FeatureMeter) feature meter} is configured, records the use
+     * against the feature's quota. Use this instead of {@link #hasLicenseForFeature(Object, String)} at the points
+     * where a feature is actually used, so that usage is counted by the library.
+     * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
+     *
+     * @param context     The context (account, client, etc.) using the feature
+     * @param featureName The feature being used
+     * @return {@code true} if the feature is licensed and the use was within its quota, {@code false} otherwise.
+     * @throws InvalidLicenseException                                   when the license is invalid for any reason.
+     * @throws ro.esolutions.licensing.exception.ExpiredLicenseException when the license is expired.
+     */
+    public final boolean useFeature(final Object context, final String featureName) throws InvalidLicenseException {
+        return this.hasLicenseForFeature(context, featureName) &&
+                (this.featureMeter == null || this.featureMeter.tryUse(context, featureName));
+    }
+
     /**
      * Checks whether the license assigned to the specified context is licensed to use any of the features specified.
      * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
@@ -221,6 +270,50 @@ public final class LicenseManager {
         return license.hasLicenseForAllFeatures(features);
     }
 
+    /**
+     * Checks whether the license assigned to the specified context is licensed to use any of the features in the
+     * pre-resolved feature set. This is the fastest way to check several features at once.
+     * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
+     *
+     * @param context    The context (account, client, etc.) for which to check the features against its license
+     * @param featureSet The features to check against the license
+     * @return {@code true} if the license exists and has any of these features enabled, {@code false} otherwise.
+     * @throws InvalidLicenseException                                   when the license is invalid for any reason.
+     * @throws ro.esolutions.licensing.exception.ExpiredLicenseException when the license is expired.
+     */
+    public final boolean hasLicenseForAnyFeature(final Object context, final FeatureSet featureSet)
+            throws InvalidLicenseException {
+        final License license = this.getLicense(context);
+        if (license == null) {
+            return false;
+        }
+
+        this.validateLicense(license);
+        return license.hasLicenseForAnyFeature(featureSet);
+    }
+
+    /**
+     * Checks whether the license assigned to the specified context is licensed to use all of the features in the
+     * pre-resolved feature set. This is the fastest way to check several features at once.
+     * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
+     *
+     * @param context    The context (account, client, etc.) for which to check the features against its license
+     * @param featureSet The features to check against the license
+     * @return {@code true} if the license exists and has all of these features enabled, {@code false} otherwise.
+     * @throws InvalidLicenseException                                   when the license is invalid for any reason.
+     * @throws ro.esolutions.licensing.exception.ExpiredLicenseException when the license is expired.
+     */
+    public final boolean hasLicenseForAllFeatures(final Object context, final FeatureSet featureSet)
+            throws InvalidLicenseException {
+        final License license = this.getLicense(context);
+        if (license == null) {
+            return false;
+        }
+
+        this.validateLicense(license);
+        return license.hasLicenseForAllFeatures(featureSet);
+    }
+
     /**
      * Checks whether the license assigned to the specified context is licensed to use the feature(s) in the annotation
      * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
@@ -246,7 +339,8 @@ public final class LicenseManager {
 
     /**
      * Checks whether the license assigned to the specified context is licensed to use the feature(s) in the
-     * {@link FeatureRestriction} annotation value, if the target is annotated with that annotation.<br>
+     * {@link FeatureRestriction} annotation value, if the target is annotated with that annotation. The annotation is
+     * read and resolved into a {@link FeatureSet} only the first time each target is checked.<br>
      * <br>
      * Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
      *
@@ -265,13 +359,148 @@ public final class LicenseManager {
             return false;
         }
         this.validateLicense(license);
-        final FeatureRestriction annotation = target.getAnnotation(FeatureRestriction.class);
 
-        return annotation == null || (
-                annotation.operand() == FeatureRestrictionOperand.AND ?
-                        license.hasLicenseForAllFeatures(annotation.value()) :
-                        license.hasLicenseForAnyFeature(annotation.value())
-        );
+        return CompiledFeatureRestriction.forElement(target).test(license);
+    }
+
+    /**
+     * Acquires one of the seats of the license assigned to the specified context, limited by
+     * {@link License#getSeats()}. This is equivalent to {@code acquireSeat(context, null)}.
+     * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
+     *
+     * @param context The context (account, client, etc.) whose license seat to acquire
+     * @return the seat lease, or {@code null} if the context has no license or all of its seats are in use.
+     * @throws InvalidLicenseException                                   when the license is invalid for any reason.
+     * @throws ro.esolutions.licensing.exception.ExpiredLicenseException when the license is expired.
+     */
+    public final SeatLease acquireSeat(final Object context) throws InvalidLicenseException {
+        return this.acquireSeat(context, null);
+    }
+
+    /**
+     * Acquires a seat of a feature of the license assigned to the specified context, limited by
+     * {@link Feature#getSeats()}, or a seat of the license itself, limited by {@link License#getSeats()}, if the feature
+     * name is {@code null}. A seat count of zero or less means the same for the license and for a feature: it is not
+     * seat-limited. Seats are counted per granting feature: all the names matched by a wildcard grant such as
+     * {@code reports.*} share its seats, and the lease reports the name of the grant. The lease must be
+     * {@link #renewSeat(SeatLease) renewed} before it expires (see
+     * {@link LicenseManagerProperties#setSeatLeaseTimeInSeconds(int)}) and {@link #releaseSeat(SeatLease) released}
+     * when it is no longer needed.<br>
+     * <br>
+     * Seat accounting is lock-free: each context (and each feature of it) has its own atomic counter, so concurrent
+     * logins only contend with logins to the same context and feature. Seats are counted in this manager only unless
+     * a {@link LicenseManagerProperties#setSeatStore(SeatStore) seat store} is configured, in which case the limit
+     * holds across all processes sharing the store, which count the seats of the context under its
+     * {@link LicenseManagerProperties#setSeatContextKey(Function) seat context key}.
+     * <br> Throws the same exceptions as {@link #getLicense(Object)} and for the same reasons.
+     *
+     * @param context     The context (account, client, etc.) whose license seat to acquire
+     * @param featureName The feature whose seat to acquire, or {@code null} for a seat of the license
+     * @return the seat lease, or {@code null} if the context has no license, the feature is not licensed or all seats
+     * are in use.
+     * @throws InvalidLicenseException                                   when the license is invalid for any reason.
+     * @throws ro.esolutions.licensing.exception.ExpiredLicenseException when the license is expired.
+     */
+    public final SeatLease acquireSeat(final Object context, final String featureName)
+            throws InvalidLicenseException {
+        final License license = this.getLicense(context);
+        if (license == null) {
+            return null;
+        }
+        this.validateLicense(license);
+
+        final long now = System.currentTimeMillis();
+        final int limit;
+        final String grantName;
+        if (featureName == null) {
+            limit = license.getSeats() > 0 ? license.getSeats() : Integer.MAX_VALUE;
+            grantName = null;
+        } else {
+            final Feature feature = license.findFeature(featureName);
+            if (feature == null || !feature.isActiveAt(now)) {
+                return null;
+            }
+            limit = feature.getSeats() > 0 ? feature.getSeats() : Integer.MAX_VALUE;
+            grantName = feature.getName();
+        }
+
+        final SeatKey key = new SeatKey(context, grantName);
+        while (true) {
+            SeatPool pool = this.seatPools.get(key);
+            if (pool == null) {
+                pool = this.seatPools.computeIfAbsent(key, k -> new SeatPool(this.seatAllocator == null ? null :
+                        this.seatAllocator.getAccount(this.seatContextKey.apply(context), grantName),
+                        p -> this.seatPools.remove(k, p)));
+            }
+            final SeatLease lease = pool.tryAcquire(context, grantName, limit, now,
+                    now + this.seatLeaseTimeInMilliseconds);
+            if (lease != null || !pool.isRetired()) {
+                return lease;
+            }
+            // The last lease of the pool went away while we were acquiring; the next pass uses a new pool.
+        }
+    }
+
+    /**
+     * Renews the seat lease, extending its expiry time by the configured lease time from now. Call this periodically
+     * (a heartbeat) for as long as the seat is in use.
+     *
+     * @param lease The lease to renew
+     * @return {@code true} if the lease was renewed, {@code false} if it had already been released or had expired and
+     * been reclaimed, in which case a new seat must be acquired.
+     */
+    public final boolean renewSeat(final SeatLease lease) {
+        if (lease == null) {
+            throw new IllegalArgumentException("Parameter lease must not be null.");
+        }
+        return lease.renew(System.currentTimeMillis() + this.seatLeaseTimeInMilliseconds);
+    }
+
+    /**
+     * Releases the seat lease, making its seat available to others. Releasing a lease more than once has no effect.
+     *
+     * @param lease The lease to release
+     */
+    public final void releaseSeat(final SeatLease lease) {
+        if (lease == null) {
+            throw new IllegalArgumentException("Parameter lease must not be null.");
+        }
+        lease.pool.release(lease);
+    }
+
+    /**
+     * Returns the seats reserved from the {@link LicenseManagerProperties#setSeatStore(SeatStore) seat store} but not
+     * held by any lease to the store, so that other processes can use them. Call this when the application shuts down.
+     * Does nothing if no seat store is configured.
+     */
+    public final void returnUnusedSeats() {
+        if (this.seatAllocator != null) {
+            this.seatAllocator.returnUnusedSeats();
+        }
+    }
+
+    /**
+     * Returns the number of seats of the license assigned to the specified context, or of one of its features, that
+     * are held by leases. Leases that have expired but have not been reclaimed yet are included. The seats of a
+     * feature are those of the feature that grants it, so all the names matched by a wildcard grant report the same
+     * seats.
+     *
+     * @param context     The context (account, client, etc.)
+     * @param featureName The feature, or {@code null} for the seats of the license
+     * @return the number of seats in use.
+     */
+    public final int getSeatsInUse(final Object context, final String featureName) {
+        String grantName = null;
+        if (featureName != null) {
+            final License license = this.getLicense(context);
+            final Feature feature = license == null ? null : license.findFeature(featureName);
+            if (feature == null) {
+                return 0;
+            }
+            grantName = feature.getName();
+        }
+        final SeatPool pool = this.seatPools.get(new SeatKey(context, grantName));
+        return pool == null ? 0 : pool.getInUse();
     }
 
     /**
@@ -357,9 +586,13 @@ public final class LicenseManager {
      * Normally you will not need to call this method; all of the other methods in this class call this method at some
      * point or another in one way or another (specifically by way of {@link #getLicense(Object)}). This is a
      * convenience method useful for verifying the signature of an individual license without going through all of the
-     * retrieval and caching mechanisms normally used when calling {@link #getLicense(Object)}.
+     * retrieval and caching mechanisms normally used when calling {@link #getLicense(Object)}.<br>
+     * <br>
+     * The signature is checked against the public key registered under the license's
+     * {@link SignedLicense#getKeyId() key id}, which is looked up in a map of already decoded keys.
      *
      * @param signedLicense The signed license object to verify
+     * @throws KeyNotFoundException           if no public key is registered for the license's key id.
      * @throws AlgorithmNotSupportedException if the signature algorithm is not supported on this system.
      * @throws InappropriateKeyException      if there is a problem initializing the verification mechanism with the
      *                                        public key.
@@ -368,20 +601,70 @@ public final class LicenseManager {
      */
     public final void verifyLicenseSignature(final SignedLicense signedLicense) throws AlgorithmNotSupportedException,
             InappropriateKeyException, CorruptSignatureException, InvalidSignatureException {
-        PublicKey key;
-        {
-            final char[] password = this.publicKeyPasswordProvider.getPassword();
-            final byte[] keyData = this.publicKeyDataProvider.getEncryptedPublicKeyData();
+        final PublicKey key = this.getPublicKey(signedLicense.getKeyId());
 
-            key = KeyFileUtilities.readEncryptedPublicKey(keyData, password);
+        new DataSignatureManager().verifySignature(
+                key, signedLicense.getLicenseContent(), signedLicense.getSignatureContent()
+        );
+    }
 
+    /**
+     * Registers the public key with the specified identifier, replacing any key previously registered under the same
+     * identifier. The key data is read and decrypted lazily, the first time a license signed with this key is
+     * verified, and then kept in decoded form. This can be called at any time while the application is running; it
+     * does not affect licenses that are already cached.
+     *
+     * @param keyId                 The identifier the license creator embeds in licenses signed with this key
+     * @param publicKeyDataProvider The provider of the data for the public key
+     */
+    public final void addPublicKey(final String keyId, final PublicKeyDataProvider publicKeyDataProvider) {
+        if (keyId == null) {
+            throw new IllegalArgumentException("Parameter keyId must not be null.");
+        }
+        if (publicKeyDataProvider == null) {
+            throw new IllegalArgumentException("Parameter publicKeyDataProvider must not be null.");
+        }
+        this.publicKeyDataProviders.put(keyId, publicKeyDataProvider);
+        this.publicKeys.remove(keyId);
+    }
+
+    /**
+     * Retires the public key with the specified identifier. Licenses signed with this key will fail verification with
+     * a {@link KeyNotFoundException} the next time they are retrieved from the license provider, but licenses that are
+     * already cached remain cached until they expire.
+     *
+     * @param keyId The identifier of the key to retire
+     */
+    public final void retirePublicKey(final String keyId) {
+        if (keyId == null) {
+            throw new IllegalArgumentException("Parameter keyId must not be null.");
+        }
+        this.publicKeyDataProviders.remove(keyId);
+        this.publicKeys.remove(keyId);
+    }
+
+    private PublicKey getPublicKey(final String keyId) {
+        final String id = keyId == null ? DEFAULT_KEY_ID : keyId;
+
+        final PublicKey key = this.publicKeys.get(id);
+        return key != null ? key : this.publicKeys.computeIfAbsent(id, this::readPublicKey);
+    }
+
+    private PublicKey readPublicKey(final String keyId) {
+        final PublicKeyDataProvider provider = this.publicKeyDataProviders.get(keyId);
+        if (provider == null) {
+            throw new KeyNotFoundException("No public key is registered for key id [" + keyId + "].");
+        }
+
+        final char[] password = this.publicKeyPasswordProvider.getPassword();
+        final byte[] keyData = provider.getEncryptedPublicKeyData();
+
+        try {
+            return KeyFileUtilities.readEncryptedPublicKey(keyData, password);
+        } finally {
             Arrays.fill(password, '\u0000');
             Arrays.fill(keyData, (byte) 0);
         }
-
-        new DataSignatureManager().verifySignature(
-                key, signedLicense.getLicenseContent(), signedLicense.getSignatureContent()
-        );
     }
 
     /**
@@ -390,7 +673,11 @@ public final class LicenseManager {
      * method; all of the other methods in this class call this method at some point or another in one way or another
      * (specifically by way of {@link #getLicense(Object)}). This is a convenience method useful for verifying the
      * signature of and interpreting an individual license without going through all of the retrieval and caching
-     * mechanisms normally used when calling {@link #getLicense(Object)}.
+     * mechanisms normally used when calling {@link #getLicense(Object)}.<br>
+     * <br>
+     * Compressed licenses are decompressed transparently. A license that would decompress to more than the
+     * {@link LicenseManagerProperties#setMaximumLicenseSize(int) maximum license size} is rejected before it is
+     * decompressed.
      *
      * @param signedLicense The signed license object to verify
      * @return the decrypted license object.
@@ -400,6 +687,7 @@ public final class LicenseManager {
      * @throws CorruptSignatureException      if the signature data has been corrupted (most likely tampered with).
      * @throws InvalidSignatureException      if the signature is invalid (most likely tampered with).
      * @throws FailedToDecryptException       if the license could not be decrypted.
+     * @throws ObjectDeserializationException if the decrypted license is malformed or too large.
      */
     public final License decryptAndVerifyLicense(final SignedLicense signedLicense) {
         License license;
@@ -417,7 +705,7 @@ public final class LicenseManager {
                 Arrays.fill(encrypted, (byte) 0);
             }
 
-            license = License.deserialize(unencrypted);
+            license = License.deserialize(unencrypted, this.maximumLicenseSize);
 
             Arrays.fill(unencrypted, (byte) 0);
         }
@@ -437,4 +725,40 @@ public final class LicenseManager {
             this.expires = expires;
         }
     }
+
+    /**
+     * The key of a seat pool: a context, and the feature whose seats are counted or {@code null} for the seats of
+     * the license.
+     */
+    private final static class SeatKey {
+        private final Object context;
+
+        private final String featureName;
+
+        private final int hashCode;
+
+        private SeatKey(final Object context, final String featureName) {
+            if (context == null) {
+                throw new IllegalArgumentException("License context cannot be null.");
+            }
+            this.context = context;
+            this.featureName = featureName;
+            this.hashCode = 31 * context.hashCode() + (featureName == null ? 0 : featureName.hashCode());
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof SeatKey)) {
+                return false;
+            }
+            final SeatKey other = (SeatKey) object;
+            return this.hashCode == other.hashCode && this.context.equals(other.context) &&
+                    (this.featureName == null ? other.featureName == null : this.featureName.equals(other.featureName));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
 }
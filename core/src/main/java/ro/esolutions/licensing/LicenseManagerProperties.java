@@ -21,6 +21,11 @@ package ro.esolutions.licensing;
 import ro.esolutions.licensing.encryption.PasswordProvider;
 import ro.esolutions.licensing.encryption.PublicKeyDataProvider;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
 /**
  * This class is used to set properties that will be used to instantiate the {@link LicenseManager}. Read the
  * documentation for each property below.
@@ -32,6 +37,8 @@ import ro.esolutions.licensing.encryption.PublicKeyDataProvider;
 public final class LicenseManagerProperties {
     private static PublicKeyDataProvider publicKeyDataProvider;
 
+    private static Map<String, PublicKeyDataProvider> publicKeyDataProviders = Collections.emptyMap();
+
     private static PasswordProvider publicKeyPasswordProvider;
 
     private static LicenseProvider licenseProvider;
@@ -42,11 +49,26 @@ public final class LicenseManagerProperties {
 
     private static int cacheTimeInMinutes;
 
+    private static int maximumLicenseSize = ObjectSerializer.DEFAULT_MAXIMUM_BYTES;
+
+    private static int seatLeaseTimeInSeconds;
+
+    private static SeatStore seatStore;
+
+    private static int seatBlockSize = 16;
+
+    private static int seatReservationTimeInSeconds;
+
+    private static Function<Object, String> seatContextKey;
+
+    private static FeatureMeter featureMeter;
+
     /**
      * Sets the provider of the data for the public key companion to the private key used to sign the license
-     * object.<br>
+     * object. Licenses signed without a key identifier are verified against this key.<br>
      * <br>
-     * This field is <b>required</b>.
+     * This field is <b>required</b> unless {@link #setPublicKeyDataProviders(Map) publicKeyDataProviders} is
+     * provided.
      *
      * @param publicKeyDataProvider The provider of the data for the public key companion to the private key used to
      *                              sign the license object
@@ -59,6 +81,26 @@ public final class LicenseManagerProperties {
         return LicenseManagerProperties.publicKeyDataProvider;
     }
 
+    /**
+     * Sets the providers of the data for additional public keys, mapped by the key identifier that the license creator
+     * embeds in each {@link SignedLicense}. Licenses without a key identifier are verified against the
+     * {@link #setPublicKeyDataProvider(PublicKeyDataProvider) publicKeyDataProvider}. Keys can also be added and
+     * retired later, while the application is running, with {@link LicenseManager#addPublicKey(String,
+     * PublicKeyDataProvider)} and {@link LicenseManager#retirePublicKey(String)}.<br>
+     * <br>
+     * This field is <b>optional</b>. If it is provided, the {@code publicKeyDataProvider} becomes optional.
+     *
+     * @param publicKeyDataProviders The providers of the public key data, mapped by key identifier
+     */
+    public static void setPublicKeyDataProviders(final Map<String, PublicKeyDataProvider> publicKeyDataProviders) {
+        LicenseManagerProperties.publicKeyDataProviders = publicKeyDataProviders == null ?
+                Collections.emptyMap() : new LinkedHashMap<>(publicKeyDataProviders);
+    }
+
+    static Map<String, PublicKeyDataProvider> getPublicKeyDataProviders() {
+        return LicenseManagerProperties.publicKeyDataProviders;
+    }
+
     /**
      * Sets the provider of the password for decrypting the public key.<br>
      * <br>
@@ -140,6 +182,121 @@ public final class LicenseManagerProperties {
         return cacheTimeInMinutes;
     }
 
+    /**
+     * Sets the maximum size in bytes of a decrypted license. Compressed licenses that declare a larger decompressed
+     * size are rejected before they are decompressed.<br>
+     * <br>
+     * This field is <b>optional</b> and defaults to {@link ObjectSerializer#DEFAULT_MAXIMUM_BYTES}.
+     *
+     * @param maximumLicenseSize The maximum size in bytes of a decrypted license
+     */
+    public static void setMaximumLicenseSize(final int maximumLicenseSize) {
+        LicenseManagerProperties.maximumLicenseSize = maximumLicenseSize;
+    }
+
+    static int getMaximumLicenseSize() {
+        return LicenseManagerProperties.maximumLicenseSize;
+    }
+
+    /**
+     * Sets the length of time in seconds that a {@link SeatLease seat lease} stays valid without being renewed. Leases
+     * that are not renewed within this time are reclaimed when the context runs out of seats.<br>
+     * <br>
+     * This field is <b>optional</b> and defaults to 5 minutes.
+     *
+     * @param seatLeaseTimeInSeconds The length of time in seconds that a seat lease stays valid without being renewed
+     */
+    public static void setSeatLeaseTimeInSeconds(final int seatLeaseTimeInSeconds) {
+        LicenseManagerProperties.seatLeaseTimeInSeconds = seatLeaseTimeInSeconds;
+    }
+
+    static int getSeatLeaseTimeInSeconds() {
+        return LicenseManagerProperties.seatLeaseTimeInSeconds;
+    }
+
+    /**
+     * Sets the shared store of seat reservations, used to enforce seat limits across all the processes serving the same
+     * licenses. Seats are reserved from the store in blocks of {@link #setSeatBlockSize(int) seatBlockSize} and handed
+     * out locally.<br>
+     * <br>
+     * This field is <b>optional</b>. If not provided, seats are counted in this process only.
+     *
+     * @param seatStore The shared store of seat reservations
+     */
+    public static void setSeatStore(final SeatStore seatStore) {
+        LicenseManagerProperties.seatStore = seatStore;
+    }
+
+    static SeatStore getSeatStore() {
+        return LicenseManagerProperties.seatStore;
+    }
+
+    /**
+     * Sets the number of seats reserved from the {@link #setSeatStore(SeatStore) seatStore} at a time.<br>
+     * <br>
+     * This field is <b>optional</b> and defaults to 16.
+     *
+     * @param seatBlockSize The number of seats reserved from the seat store at a time
+     */
+    public static void setSeatBlockSize(final int seatBlockSize) {
+        LicenseManagerProperties.seatBlockSize = seatBlockSize;
+    }
+
+    static int getSeatBlockSize() {
+        return LicenseManagerProperties.seatBlockSize;
+    }
+
+    /**
+     * Sets the length of time in seconds that seats reserved from the {@link #setSeatStore(SeatStore) seatStore} stay
+     * reserved after this process last renewed them. Reservations are renewed in the background three times per this
+     * time, so the seats of a process that crashes become available to the others once it has passed.<br>
+     * <br>
+     * This field is <b>optional</b> and defaults to 1 minute.
+     *
+     * @param seatReservationTimeInSeconds The length of time in seconds that seat reservations outlive their renewal
+     */
+    public static void setSeatReservationTimeInSeconds(final int seatReservationTimeInSeconds) {
+        LicenseManagerProperties.seatReservationTimeInSeconds = seatReservationTimeInSeconds;
+    }
+
+    static int getSeatReservationTimeInSeconds() {
+        return LicenseManagerProperties.seatReservationTimeInSeconds;
+    }
+
+    /**
+     * Sets the function that returns the key under which the {@link #setSeatStore(SeatStore) seatStore} counts the
+     * seats of a context. The key must identify the context, and only that context, in every process sharing the
+     * store and across restarts: two contexts with the same key share one seat count.<br>
+     * <br>
+     * This field is <b>optional</b> and defaults to {@link Object#toString()}, which is only suitable for contexts
+     * such as strings, numbers or value objects whose {@code toString()} identifies them.
+     *
+     * @param seatContextKey The function returning the seat store key of a context
+     */
+    public static void setSeatContextKey(final Function<Object, String> seatContextKey) {
+        LicenseManagerProperties.seatContextKey = seatContextKey;
+    }
+
+    static Function<Object, String> getSeatContextKey() {
+        return LicenseManagerProperties.seatContextKey;
+    }
+
+    /**
+     * Sets the meter that counts, and optionally limits, feature usage through
+     * {@link LicenseManager#useFeature(Object, String)}.<br>
+     * <br>
+     * This field is <b>optional</b>. If not provided, {@code useFeature} only checks the license.
+     *
+     * @param featureMeter The meter for feature usage
+     */
+    public static void setFeatureMeter(final FeatureMeter featureMeter) {
+        LicenseManagerProperties.featureMeter = featureMeter;
+    }
+
+    static FeatureMeter getFeatureMeter() {
+        return LicenseManagerProperties.featureMeter;
+    }
+
     /**
      * This class cannot be instantiated.
      */
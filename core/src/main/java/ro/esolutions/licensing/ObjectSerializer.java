@@ -24,6 +24,10 @@ import ro.esolutions.licensing.exception.ObjectSerializationException;
 import ro.esolutions.licensing.exception.ObjectTypeNotExpectedException;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This is a helper class for writing any object and reading simple objects (no
@@ -34,11 +38,84 @@ import java.io.*;
  * @since 1.0.0
  */
 public final class ObjectSerializer {
+    /**
+     * The default maximum size, in bytes, of a serialized object accepted by {@link #readObject(Class, byte[])}.
+     */
+    public static final int DEFAULT_MAXIMUM_BYTES = 1024 * 1024;
+
+    private static final int MAXIMUM_DEPTH = 16;
+
+    private static final int MAXIMUM_REFERENCES = 100_000;
+
+    /**
+     * The exact classes that make up serialized licenses and signed licenses. Everything else, including the other
+     * classes of this library, is rejected before it is instantiated.
+     */
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+            "ro.esolutions.licensing.License",
+            "ro.esolutions.licensing.Feature",
+            "ro.esolutions.licensing.SignedLicense",
+            "ro.esolutions.licensing.immutable.ImmutableAbstractCollection",
+            "ro.esolutions.licensing.immutable.ImmutableLinkedHashSet",
+            "ro.esolutions.licensing.immutable.ImmutableArrayList",
+            "java.util.LinkedHashSet",
+            "java.util.HashSet",
+            "java.util.ArrayList",
+            "java.time.Ser",
+            "java.time.Instant"
+    ));
 
+    /**
+     * The array types in those streams: the byte arrays of signed licenses, and the arrays that {@code HashSet} and
+     * {@code ArrayList} check their capacity against before allocating them.
+     */
+    private static final Set<Class<?>> ALLOWED_ARRAYS = new HashSet<>(Arrays.asList(
+            byte[].class, Object[].class, Map.Entry[].class
+    ));
+
+    /**
+     * Reads an object of the expected type from the byte array, accepting at most
+     * {@link #DEFAULT_MAXIMUM_BYTES} bytes.
+     *
+     * @param expectedType The type of object expected in the byte array
+     * @param byteStream   The byte stream with the object serialized in it
+     * @param <T>          The type of object expected
+     * @return the deserialized object.
+     * @throws ObjectDeserializationException if the object could not be read or was rejected.
+     * @throws ObjectTypeNotExpectedException if the object is not of the expected type.
+     * @see #readObject(Class, byte[], int)
+     */
     public final <T extends Serializable> T readObject(final Class<T> expectedType, final byte[] byteStream)
             throws ObjectDeserializationException {
+        return this.readObject(expectedType, byteStream, DEFAULT_MAXIMUM_BYTES);
+    }
+
+    /**
+     * Reads an object of the expected type from the byte array. The stream is read through an
+     * {@link ObjectInputFilter} that only admits the license classes, rejects a top-level object that is not of the
+     * expected type and bounds the stream size, graph depth, array lengths and number of references, so that hostile
+     * or corrupted data is rejected before the objects it describes are allocated.
+     *
+     * @param expectedType The type of object expected in the byte array
+     * @param byteStream   The byte stream with the object serialized in it
+     * @param maximumBytes The maximum size of the byte stream
+     * @param <T>          The type of object expected
+     * @return the deserialized object.
+     * @throws ObjectDeserializationException if the object could not be read or was rejected.
+     * @throws ObjectTypeNotExpectedException if the object is not of the expected type.
+     */
+    public final <T extends Serializable> T readObject(final Class<T> expectedType, final byte[] byteStream,
+                                                       final int maximumBytes)
+            throws ObjectDeserializationException {
+        if (byteStream.length > maximumBytes) {
+            throw new ObjectDeserializationException("The serialized object is " + byteStream.length +
+                    " bytes long, which exceeds the maximum of " + maximumBytes + " bytes.");
+        }
+
+        final Class<?>[] unexpectedType = new Class<?>[1];
         try (final ByteArrayInputStream bytes = new ByteArrayInputStream(byteStream);
              final ObjectInputStream stream = new ObjectInputStream(bytes)) {
+            stream.setObjectInputFilter(ObjectSerializer.createFilter(expectedType, maximumBytes, unexpectedType));
 
             final Object allegedObject = stream.readObject();
             if (!expectedType.isInstance(allegedObject)) {
@@ -46,6 +123,11 @@ public final class ObjectSerializer {
             }
 
             return expectedType.cast(allegedObject);
+        } catch (final InvalidClassException e) {
+            if (unexpectedType[0] != null) {
+                throw new ObjectTypeNotExpectedException(expectedType.getName(), unexpectedType[0].getName(), e);
+            }
+            throw new ObjectDeserializationException("The serialized object was rejected while reading it.", e);
         } catch (final IOException e) {
             throw new ObjectDeserializationException("An I/O error occurred while reading the object from the byte array.", e);
         } catch (final ClassNotFoundException | NoClassDefFoundError e) {
@@ -53,6 +135,31 @@ public final class ObjectSerializer {
         }
     }
 
+    private static ObjectInputFilter createFilter(final Class<?> expectedType, final int maximumBytes,
+                                                  final Class<?>[] unexpectedType) {
+        final ObjectInputFilter limits = ObjectInputFilter.Config.createFilter(
+                "maxbytes=" + maximumBytes + ";maxdepth=" + MAXIMUM_DEPTH + ";maxrefs=" + MAXIMUM_REFERENCES +
+                        ";maxarray=" + maximumBytes
+        );
+
+        return info -> {
+            final Class<?> serialClass = info.serialClass();
+            if (serialClass != null) {
+                if (info.depth() == 1 && !serialClass.isArray() && !expectedType.isAssignableFrom(serialClass)) {
+                    unexpectedType[0] = serialClass;
+                    return ObjectInputFilter.Status.REJECTED;
+                }
+                if (serialClass.isArray() ? !ALLOWED_ARRAYS.contains(serialClass) :
+                        !ALLOWED_CLASSES.contains(serialClass.getName())) {
+                    return ObjectInputFilter.Status.REJECTED;
+                }
+            }
+            final ObjectInputFilter.Status status = limits.checkInput(info);
+            return status == ObjectInputFilter.Status.UNDECIDED && serialClass != null ?
+                    ObjectInputFilter.Status.ALLOWED : status;
+        };
+    }
+
     /**
      * Serializes the {@link Serializable} object passed and returns it as a byte array.
      *
@@ -0,0 +1,340 @@
+/*
+ * SeatAllocator.java from LicenseManager modified Tuesday, October 20, 2026 00:31:26 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out seats reserved from a shared {@link SeatStore} in blocks. Each context and feature has a local account of
+ * seats this process has reserved but not handed out; acquiring a seat takes one from the account with a single
+ * compare-and-set, and the store is only called when the account is empty (to reserve another block) or holds more
+ * than two blocks (to return the surplus). Since the store never lets the reservations of all processes exceed the
+ * seat limit, the limit stays strict, while the number of store calls drops by roughly the block size.<br>
+ * <br>
+ * The allocator reserves seats as a holder with a random identifier and renews the holder from a background thread
+ * three times per reservation time, so the reservations of a process that crashes are reclaimed by the store once
+ * the reservation time has passed. If the holder expires anyway, for example because the process was suspended, the
+ * allocator continues as a new holder and reserves the seats still handed out again; seats that other processes took
+ * in the meantime are then over the limit until released.<br>
+ * <br>
+ * Seats reserved but idle in one process are not available to the others until they are returned, so a small block
+ * size suits licenses with few seats. Call {@link #returnUnusedSeats()} or {@link #close()} when the process shuts
+ * down.
+ *
+ * @since 1.0.4
+ */
+public final class SeatAllocator implements AutoCloseable {
+    /**
+     * The local expiry time of a holder that has not reserved anything yet.
+     */
+    private static final long NOT_RESERVED = Long.MAX_VALUE;
+
+    private final SeatStore store;
+
+    private final int blockSize;
+
+    private final long ttlInMilliseconds;
+
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+    private volatile String holder = SeatAllocator.newHolder();
+
+    /**
+     * The time by which the store will have expired the holder unless it is renewed, as seen by this process: the
+     * time to live counted from just before the last store call that kept the holder alive, which is never later
+     * than the store's own expiry time.
+     */
+    private final AtomicLong expiresAt = new AtomicLong(NOT_RESERVED);
+
+    private final ScheduledExecutorService renewer;
+
+    /**
+     * Constructs an allocator that reserves seats from the store in blocks of the given size, for one minute at a
+     * time.
+     *
+     * @param store     The shared seat store
+     * @param blockSize The number of seats to reserve from the store at a time
+     */
+    public SeatAllocator(final SeatStore store, final int blockSize) {
+        this(store, blockSize, Duration.ofMinutes(1));
+    }
+
+    /**
+     * Constructs an allocator that reserves seats from the store in blocks of the given size, for the given time at a
+     * time.
+     *
+     * @param store           The shared seat store
+     * @param blockSize       The number of seats to reserve from the store at a time
+     * @param reservationTime The time the reservations of this allocator outlive its last renewal
+     */
+    public SeatAllocator(final SeatStore store, final int blockSize, final Duration reservationTime) {
+        if (store == null) {
+            throw new IllegalArgumentException("Parameter store must not be null.");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Parameter blockSize must be positive.");
+        }
+        if (reservationTime == null || reservationTime.toMillis() < 3) {
+            throw new IllegalArgumentException("Parameter reservationTime must be a positive duration.");
+        }
+        this.store = store;
+        this.blockSize = blockSize;
+        this.ttlInMilliseconds = reservationTime.toMillis();
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "license-seat-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = this.ttlInMilliseconds / 3;
+        this.renewer.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes one seat of the context and feature, reserving another block from the store if none is left locally.
+     *
+     * @param context     The context
+     * @param featureName The feature, or {@code null} for the seats of the license
+     * @param limit       The seat limit of the license or feature
+     * @return {@code true} if a seat was taken, {@code false} if the limit has been reached across all processes.
+     */
+    public boolean tryAcquire(final String context, final String featureName, final int limit) {
+        return this.getAccount(context, featureName).tryAcquire(limit);
+    }
+
+    /**
+     * Gives back one seat of the context and feature that was taken with
+     * {@link #tryAcquire(String, String, int)}.
+     *
+     * @param context     The context
+     * @param featureName The feature, or {@code null} for the seats of the license
+     */
+    public void release(final String context, final String featureName) {
+        this.getAccount(context, featureName).release();
+    }
+
+    /**
+     * Returns all seats that this process has reserved but not handed out to the store.
+     */
+    public void returnUnusedSeats() {
+        this.accounts.values().forEach(Account::returnUnused);
+    }
+
+    /**
+     * Stops renewing the reservations and returns the unused seats. The seats still handed out stay reserved until
+     * the reservation time has passed.
+     */
+    @Override
+    public void close() {
+        this.renewer.shutdown();
+        try {
+            this.renewer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.returnUnusedSeats();
+    }
+
+    Account getAccount(final String context, final String featureName) {
+        final String key = SeatKeys.getKey(context, featureName);
+        final Account account = this.accounts.get(key);
+        return account != null ? account : this.accounts.computeIfAbsent(key, k -> new Account(context, featureName));
+    }
+
+    private static String newHolder() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Renews the holder, or replaces it if it has expired. This runs on the background thread.
+     */
+    private void renew() {
+        try {
+            final String holder = this.holder;
+            final long expiresAt = this.expiresAt.get();
+            if (expiresAt == NOT_RESERVED) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            if (now < expiresAt && this.store.renew(holder, this.ttlInMilliseconds)) {
+                this.extend(now);
+            } else {
+                this.replaceHolder(holder);
+            }
+        } catch (final RuntimeException e) {
+            // the store is unavailable; try again at the next renewal, or replace the holder once it has expired
+        }
+    }
+
+    /**
+     * Replaces the holder if it has expired locally, before the store is called on its behalf.
+     */
+    private void checkHolder() {
+        final String holder = this.holder;
+        final long expiresAt = this.expiresAt.get();
+        if (expiresAt != NOT_RESERVED && System.currentTimeMillis() >= expiresAt) {
+            this.replaceHolder(holder);
+        }
+    }
+
+    /**
+     * Continues as a new holder and moves the seats of all accounts to it, unless another thread already did.
+     */
+    private synchronized void replaceHolder(final String expired) {
+        if (this.holder.equals(expired)) {
+            this.holder = SeatAllocator.newHolder();
+            this.expiresAt.set(NOT_RESERVED);
+            this.accounts.values().forEach(Account::migrate);
+        }
+    }
+
+    /**
+     * Records that a store call made at the given time kept the holder alive.
+     */
+    private void extend(final long calledAt) {
+        final long expiresAt = calledAt + this.ttlInMilliseconds;
+        this.expiresAt.accumulateAndGet(expiresAt, (current, next) ->
+                current == NOT_RESERVED ? next : Math.max(current, next));
+    }
+
+    /**
+     * The seats of one context and feature that this process has reserved from the store but not handed out.
+     */
+    final class Account {
+        private final String context;
+
+        private final String featureName;
+
+        /**
+         * The seats reserved but not handed out. This is negative if the holder was replaced and the store could not
+         * grant all the seats still handed out again.
+         */
+        private final AtomicInteger available = new AtomicInteger();
+
+        /**
+         * The seats reserved from the store, handed out or not. Guarded by this account.
+         */
+        private int reserved;
+
+        /**
+         * The holder the reserved seats belong to. Guarded by this account.
+         */
+        private String reservedBy;
+
+        private volatile int limit;
+
+        private Account(final String context, final String featureName) {
+            this.context = context;
+            this.featureName = featureName;
+        }
+
+        boolean tryAcquire(final int limit) {
+            this.limit = limit;
+            while (true) {
+                final int available = this.available.get();
+                if (available > 0) {
+                    if (this.available.compareAndSet(available, available - 1)) {
+                        return true;
+                    }
+                    continue;
+                }
+                SeatAllocator.this.checkHolder();
+                // Only one thread per account goes to the store; the others retry against the refilled account.
+                synchronized (this) {
+                    if (this.available.get() > 0) {
+                        continue;
+                    }
+                    this.migrate();
+                    final int reserved = this.reserve(this.reservedBy, SeatAllocator.this.blockSize);
+                    if (reserved == 0) {
+                        return false;
+                    }
+                    this.reserved += reserved;
+                    this.available.addAndGet(reserved);
+                }
+            }
+        }
+
+        void release() {
+            final int available = this.available.incrementAndGet();
+            if (available > 2 * SeatAllocator.this.blockSize) {
+                synchronized (this) {
+                    this.migrate();
+                    final int surplus = this.available.get() - SeatAllocator.this.blockSize;
+                    if (surplus > 0 && this.available.compareAndSet(surplus + SeatAllocator.this.blockSize,
+                            SeatAllocator.this.blockSize)) {
+                        this.giveBack(surplus);
+                    }
+                }
+            }
+        }
+
+        void returnUnused() {
+            synchronized (this) {
+                this.migrate();
+                int unused;
+                do {
+                    unused = this.available.get();
+                    if (unused <= 0) {
+                        return;
+                    }
+                } while (!this.available.compareAndSet(unused, 0));
+                this.giveBack(unused);
+            }
+        }
+
+        /**
+         * Moves the reserved seats to the current holder if they belong to an earlier one: the seats handed out are
+         * reserved again, and the idle ones are dropped with the expired holder.
+         */
+        synchronized void migrate() {
+            final String holder = SeatAllocator.this.holder;
+            if (holder.equals(this.reservedBy)) {
+                return;
+            }
+            if (this.reserved != 0) {
+                final int handedOut = this.reserved - this.available.get();
+                final int granted = handedOut > 0 ? this.reserve(holder, handedOut) : 0;
+                // keeps reserved - available, the seats handed out, unchanged
+                this.available.addAndGet(granted - this.reserved);
+                this.reserved = granted;
+            }
+            this.reservedBy = holder;
+        }
+
+        private int reserve(final String holder, final int requested) {
+            final long now = System.currentTimeMillis();
+            final int granted = SeatAllocator.this.store.reserve(holder, this.context, this.featureName, requested,
+                    this.limit, SeatAllocator.this.ttlInMilliseconds);
+            SeatAllocator.this.extend(now);
+            return granted;
+        }
+
+        private void giveBack(final int count) {
+            this.reserved -= count;
+            SeatAllocator.this.store.release(this.reservedBy, this.context, this.featureName, count);
+        }
+    }
+}
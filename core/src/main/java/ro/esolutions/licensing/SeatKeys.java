@@ -0,0 +1,49 @@
+/*
+ * SeatKeys.java from LicenseManager modified Monday, October 19, 2026 23:41:08 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ro.esolutions.licensing;
+
+/**
+ * Builds the keys under which the seat stores and the {@link SeatAllocator} keep the seats of a context and feature.
+ *
+ * @since 1.0.4
+ */
+final class SeatKeys {
+    /**
+     * Returns the key of the seats of a context, or of one of its features. The context and feature name are joined
+     * with the unit separator character, which does not occur in either.
+     *
+     * @param context     The context
+     * @param featureName The feature, or {@code null} for the seats of the license
+     * @return the key.
+     */
+    static String getKey(final String context, final String featureName) {
+        if (context == null) {
+            throw new IllegalArgumentException("Parameter context must not be null.");
+        }
+        return featureName == null ? context : context + (char) 0x1F + featureName;
+    }
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private SeatKeys() {
+        throw new RuntimeException("This class cannot be instantiated.");
+    }
+}
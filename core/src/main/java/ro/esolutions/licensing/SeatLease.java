@@ -0,0 +1,124 @@
+/*
+ * SeatLease.java from LicenseManager modified Monday, October 19, 2026 17:48:10 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A seat held by one user or session of a licensed context, obtained from
+ * {@link LicenseManager#acquireSeat(Object, String)}. A lease expires unless it is renewed with
+ * {@link LicenseManager#renewSeat(SeatLease)} before its expiry time; expired leases are reclaimed the next time the
+ * context runs out of seats. Release the lease with {@link LicenseManager#releaseSeat(SeatLease)} when the session
+ * ends.
+ *
+ * @since 1.0.4
+ */
+public final class SeatLease {
+    /**
+     * The expiry time value of a lease that has been released or reclaimed.
+     */
+    static final long RELEASED = Long.MIN_VALUE;
+
+    private final Object context;
+
+    private final String featureName;
+
+    final SeatPool pool;
+
+    private final AtomicLong expiresAt;
+
+    SeatLease(final Object context, final String featureName, final SeatPool pool, final long expiresAt) {
+        this.context = context;
+        this.featureName = featureName;
+        this.pool = pool;
+        this.expiresAt = new AtomicLong(expiresAt);
+    }
+
+    /**
+     * Gets the context the seat belongs to.
+     *
+     * @return the context.
+     */
+    public Object getContext() {
+        return this.context;
+    }
+
+    /**
+     * Gets the name of the feature the seat belongs to.
+     *
+     * @return the feature name, or {@code null} for a seat of the license as a whole.
+     */
+    public String getFeatureName() {
+        return this.featureName;
+    }
+
+    /**
+     * Gets the time at which the lease expires unless it is renewed.
+     *
+     * @return the expiry time in milliseconds since the epoch, or {@link Long#MIN_VALUE} if the lease has been
+     * released or reclaimed.
+     */
+    public long getExpiresAt() {
+        return this.expiresAt.get();
+    }
+
+    /**
+     * Indicates whether the lease still holds its seat, that is, it has been neither released nor reclaimed.
+     *
+     * @return {@code true} if the lease holds its seat, {@code false} otherwise.
+     */
+    public boolean isHeld() {
+        return this.expiresAt.get() != RELEASED;
+    }
+
+    /**
+     * Extends the lease, unless it has already been released or reclaimed.
+     */
+    boolean renew(final long expiresAt) {
+        long current;
+        do {
+            current = this.expiresAt.get();
+            if (current == RELEASED) {
+                return false;
+            }
+        } while (!this.expiresAt.compareAndSet(current, expiresAt));
+        return true;
+    }
+
+    /**
+     * Marks the lease released, and reports whether this call is the one that released it.
+     */
+    boolean release() {
+        return this.expiresAt.getAndSet(RELEASED) != RELEASED;
+    }
+
+    /**
+     * Marks the lease released if it has expired at the given time, and reports whether this call released it.
+     */
+    boolean reclaimIfExpired(final long now) {
+        final long current = this.expiresAt.get();
+        return current != RELEASED && current <= now && this.expiresAt.compareAndSet(current, RELEASED);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatLease[context=" + this.context + ", featureName=" + this.featureName + ", expiresAt=" +
+                this.expiresAt.get() + "]";
+    }
+}
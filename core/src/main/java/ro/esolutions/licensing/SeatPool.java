@@ -0,0 +1,152 @@
+/*
+ * SeatPool.java from LicenseManager modified Monday, October 19, 2026 17:55:42 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The seats in use for one context, or for one feature of one context. The count of seats in use is a single atomic
+ * counter updated with compare-and-set, which keeps the seat limit exact without any lock; pools of different
+ * contexts and features never contend with each other. Expired leases are only reclaimed when the pool is full, so
+ * the common path of acquiring and releasing a seat never walks the leases. If a {@link SeatStore} is configured, the
+ * limit is enforced by the {@link SeatAllocator} account of the pool instead, across all processes sharing the store.
+ * <br>
+ * <br>
+ * When its last lease is released or reclaimed, the pool retires: the counter is set to {@link #RETIRED} so that no
+ * seat can be taken from it any more, and the pool is removed from the {@link LicenseManager}. A caller that finds
+ * the pool retired acquires from a new pool instead.
+ *
+ * @since 1.0.4
+ */
+final class SeatPool {
+    /**
+     * The value of the in-use counter of a pool that has retired.
+     */
+    private static final int RETIRED = -1;
+
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    private final Set<SeatLease> leases = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The local account of seats reserved from a shared {@link SeatStore}, or {@code null} if seats are only counted
+     * in this process.
+     */
+    private final SeatAllocator.Account account;
+
+    /**
+     * Removes this pool from its owner once it has retired.
+     */
+    private final Consumer<SeatPool> retirement;
+
+    SeatPool(final SeatAllocator.Account account, final Consumer<SeatPool> retirement) {
+        this.account = account;
+        this.retirement = retirement;
+    }
+
+    /**
+     * Takes a seat if fewer than {@code limit} are in use, reclaiming expired leases first if the pool is full.
+     *
+     * @return the lease, or {@code null} if all seats are held by unexpired leases or the pool has
+     * {@link #isRetired() retired}.
+     */
+    SeatLease tryAcquire(final Object context, final String featureName, final int limit, final long now,
+                         final long expiresAt) {
+        while (!this.take(limit)) {
+            if (this.reclaimExpired(now) == 0) {
+                return null;
+            }
+        }
+        final SeatLease lease = new SeatLease(context, featureName, this, expiresAt);
+        this.leases.add(lease);
+        return lease;
+    }
+
+    private boolean take(final int limit) {
+        while (true) {
+            final int current = this.inUse.get();
+            if (current == RETIRED || (this.account == null && current >= limit)) {
+                return false;
+            }
+            if (this.inUse.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        if (this.account != null && !this.account.tryAcquire(limit)) {
+            // Only giving back a held seat retires the pool; a refused seat was never held.
+            this.inUse.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void giveBack() {
+        if (this.account != null) {
+            this.account.release();
+        }
+        this.decrement();
+    }
+
+    private void decrement() {
+        if (this.inUse.decrementAndGet() == 0 && this.inUse.compareAndSet(0, RETIRED)) {
+            this.retirement.accept(this);
+        }
+    }
+
+    /**
+     * Gives the lease's seat back, unless it was already released or reclaimed.
+     */
+    void release(final SeatLease lease) {
+        if (lease.release()) {
+            this.leases.remove(lease);
+            this.giveBack();
+        }
+    }
+
+    /**
+     * Reclaims the seats of all leases that have expired.
+     *
+     * @return the number of seats reclaimed.
+     */
+    int reclaimExpired(final long now) {
+        int reclaimed = 0;
+        for (final SeatLease lease : this.leases) {
+            if (lease.reclaimIfExpired(now)) {
+                this.leases.remove(lease);
+                this.giveBack();
+                reclaimed++;
+            }
+        }
+        return reclaimed;
+    }
+
+    int getInUse() {
+        return Math.max(0, this.inUse.get());
+    }
+
+    /**
+     * Indicates whether the pool has retired, after which no seat can be taken from it.
+     */
+    boolean isRetired() {
+        return this.inUse.get() == RETIRED;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * SeatStore.java from LicenseManager modified Monday, October 19, 2026 23:58:20 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package ro.esolutions.licensing;
+
+/**
+ * This specifies an interface for a shared store of seat reservations, so that the seat limits of a license can be
+ * enforced across all the processes that serve it. The store counts the seats reserved per context and feature; the
+ * {@link SeatAllocator} in each process reserves seats from it in blocks and hands them out locally, so the store is
+ * consulted far less often than seats are acquired. Contexts are passed as their
+ * {@link LicenseManagerProperties#setSeatContextKey(java.util.function.Function) seat context key}.<br>
+ * <br>
+ * Every reservation belongs to a holder, the allocator of one process, and lasts only as long as the holder keeps
+ * {@link #renew(String, long) renewing} it. When a holder is not renewed within its time to live, for example because
+ * its process crashed, the store stops counting its reservations and reclaims them, so that the seats it held become
+ * available to the other processes.<br>
+ * <br>
+ * Implementations must make {@link #reserve(String, String, String, int, int, long)} atomic across all processes
+ * sharing the store.
+ *
+ * @since 1.0.4
+ */
+public interface SeatStore {
+    /**
+     * Reserves up to the requested number of seats for the holder, never letting the total reserved by live holders
+     * for the context and feature exceed the limit. This also keeps the holder alive for the time to live from now.
+     *
+     * @param holder            The identifier of the holder reserving the seats
+     * @param context           The context whose seats to reserve
+     * @param featureName       The feature whose seats to reserve, or {@code null} for the seats of the license
+     * @param requested         The number of seats wanted
+     * @param limit             The seat limit of the license or feature
+     * @param ttlInMilliseconds The time the holder stays alive without being renewed
+     * @return the number of seats reserved, between 0 and {@code requested}.
+     */
+    int reserve(final String holder, final String context, final String featureName, final int requested,
+                final int limit, final long ttlInMilliseconds);
+
+    /**
+     * Returns seats previously reserved by the holder to the store.
+     *
+     * @param holder      The identifier of the holder returning the seats
+     * @param context     The context whose seats to return
+     * @param featureName The feature whose seats to return, or {@code null} for the seats of the license
+     * @param count       The number of seats to return
+     */
+    void release(final String holder, final String context, final String featureName, final int count);
+
+    /**
+     * Keeps the holder, and with it all of its reservations, alive for the time to live from now.
+     *
+     * @param holder            The identifier of the holder
+     * @param ttlInMilliseconds The time the holder stays alive without being renewed
+     * @return {@code true} if the holder was renewed, {@code false} if it is unknown to the store or has already
+     * expired, in which case its reservations are lost and must be made again.
+     */
+    boolean renew(final String holder, final long ttlInMilliseconds);
+
+    /**
+     * Returns the number of seats currently reserved, by all live holders, for the context and feature.
+     *
+     * @param context     The context
+     * @param featureName The feature, or {@code null} for the seats of the license
+     * @return the number of reserved seats.
+     */
+    int getReserved(final String context, final String featureName);
+}
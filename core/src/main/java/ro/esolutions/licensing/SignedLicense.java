@@ -35,9 +35,43 @@ public final class SignedLicense implements Serializable {
     private final byte[] licenseContent;
     private final byte[] signatureContent;
 
+    private final String keyId;
+
     public SignedLicense(final byte[] licenseContent,final byte[] signatureContent) {
-        this.licenseContent = Arrays.copyOf(licenseContent, licenseContent.length);
-        this.signatureContent = Arrays.copyOf(signatureContent, signatureContent.length);
+        this(licenseContent, signatureContent, null);
+    }
+
+    public SignedLicense(final byte[] licenseContent,final byte[] signatureContent,final String keyId) {
+        this(licenseContent, signatureContent, keyId, true);
+    }
+
+    /**
+     * Creates a signed license from the arrays, copying them unless the caller hands over their ownership.
+     */
+    private SignedLicense(final byte[] licenseContent,final byte[] signatureContent,final String keyId,
+                          final boolean copy) {
+        this.licenseContent = copy ? Arrays.copyOf(licenseContent, licenseContent.length) : licenseContent;
+        this.signatureContent = copy ? Arrays.copyOf(signatureContent, signatureContent.length) : signatureContent;
+        this.keyId = keyId;
+    }
+
+    /**
+     * Creates a signed license that takes ownership of the arrays instead of copying them, for use by decoders that
+     * have just allocated them.
+     */
+    static SignedLicense wrap(final byte[] licenseContent,final byte[] signatureContent,final String keyId) {
+        return new SignedLicense(licenseContent, signatureContent, keyId, false);
+    }
+
+    /**
+     * Get the identifier of the key pair this license was signed with. Licenses
+     * signed before key identifiers were introduced, or signed without one,
+     * return {@code null} and are verified against the default public key.
+     *
+     * @return the signing key identifier, or {@code null}.
+     */
+    public final String getKeyId() {
+        return this.keyId;
     }
 
     /**
@@ -0,0 +1,178 @@
+/*
+ * SignedLicenseCodec.java from LicenseManager modified Monday, October 19, 2026 11:02:17 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import ro.esolutions.licensing.exception.AlgorithmNotSupportedException;
+import ro.esolutions.licensing.exception.ObjectDeserializationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the framed binary form of a {@link SignedLicense}, which replaces Java object serialization for
+ * stored licenses. A frame is laid out as follows, with all integers in big-endian order:
+ * <pre>
+ *   magic          4 bytes   'L' 'M' 'S' 'L'
+ *   version        1 byte    1
+ *   key id         2 bytes length, then UTF-8 bytes (length 0 means no key id)
+ *   algorithm      1 byte length, then US-ASCII bytes
+ *   license        4 bytes length, then the encrypted license content
+ *   signature      4 bytes length, then the signature content
+ * </pre>
+ * Frames can be parsed from a byte array or directly from a {@link ByteBuffer} (such as a memory-mapped file) with no
+ * reflection and a single copy of the license and signature contents. Data written with Java object serialization by
+ * earlier versions is not a frame; {@link #isFramed(byte[])} tells the two apart.
+ *
+ * @since 1.0.4
+ */
+public final class SignedLicenseCodec {
+    private static final byte[] MAGIC = {'L', 'M', 'S', 'L'};
+
+    private static final byte VERSION_1 = 1;
+
+    /**
+     * Indicates whether the data starts with a signed license frame.
+     *
+     * @param data The stored license data
+     * @return {@code true} if the data is a frame, {@code false} otherwise.
+     */
+    public static boolean isFramed(final byte[] data) {
+        return data.length >= MAGIC.length && data[0] == MAGIC[0] && data[1] == MAGIC[1] && data[2] == MAGIC[2] &&
+                data[3] == MAGIC[3];
+    }
+
+    /**
+     * Indicates whether the remaining bytes of the buffer start with a signed license frame. The buffer position is
+     * not changed.
+     *
+     * @param buffer The stored license data
+     * @return {@code true} if the data is a frame, {@code false} otherwise.
+     */
+    public static boolean isFramed(final ByteBuffer buffer) {
+        final int position = buffer.position();
+        return buffer.remaining() >= MAGIC.length && buffer.get(position) == MAGIC[0] &&
+                buffer.get(position + 1) == MAGIC[1] && buffer.get(position + 2) == MAGIC[2] &&
+                buffer.get(position + 3) == MAGIC[3];
+    }
+
+    /**
+     * Writes the signed license as a frame.
+     *
+     * @param signedLicense The signed license to write
+     * @return the framed license.
+     */
+    public static byte[] encode(final SignedLicense signedLicense) {
+        final byte[] keyId = signedLicense.getKeyId() == null ?
+                new byte[0] : signedLicense.getKeyId().getBytes(StandardCharsets.UTF_8);
+        final byte[] algorithm = DataSignatureManager.SIGNATURE_ALGORITHM.getBytes(StandardCharsets.US_ASCII);
+        if (keyId.length > 0xFFFF) {
+            throw new IllegalArgumentException("The key id must not be longer than 65535 bytes.");
+        }
+
+        final byte[] licenseContent = signedLicense.getLicenseContent();
+        final byte[] signatureContent = signedLicense.getSignatureContent();
+        try {
+            final ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + 1 + 2 + keyId.length + 1 +
+                    algorithm.length + 4 + licenseContent.length + 4 + signatureContent.length);
+            buffer.put(MAGIC).put(VERSION_1);
+            buffer.putShort((short) keyId.length).put(keyId);
+            buffer.put((byte) algorithm.length).put(algorithm);
+            buffer.putInt(licenseContent.length).put(licenseContent);
+            buffer.putInt(signatureContent.length).put(signatureContent);
+            return buffer.array();
+        } finally {
+            Arrays.fill(licenseContent, (byte) 0);
+            Arrays.fill(signatureContent, (byte) 0);
+        }
+    }
+
+    /**
+     * Parses a frame from the byte array, which must hold exactly one frame and nothing after it.
+     *
+     * @param data The framed license
+     * @return the signed license.
+     * @throws ObjectDeserializationException if the data is not a valid frame or has bytes after the frame.
+     * @throws AlgorithmNotSupportedException if the license was signed with an algorithm that is not supported.
+     */
+    public static SignedLicense decode(final byte[] data) throws ObjectDeserializationException {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        final SignedLicense signedLicense = SignedLicenseCodec.decode(buffer);
+        if (buffer.hasRemaining()) {
+            throw new ObjectDeserializationException("The signed license frame is followed by " +
+                    buffer.remaining() + " unexpected bytes.");
+        }
+        return signedLicense;
+    }
+
+    /**
+     * Parses a frame from the remaining bytes of the buffer, advancing its position past the frame.
+     *
+     * @param buffer The framed license
+     * @return the signed license.
+     * @throws ObjectDeserializationException if the data is not a valid frame.
+     * @throws AlgorithmNotSupportedException if the license was signed with an algorithm that is not supported.
+     */
+    public static SignedLicense decode(final ByteBuffer buffer) throws ObjectDeserializationException {
+        if (!SignedLicenseCodec.isFramed(buffer)) {
+            throw new ObjectDeserializationException("The license data is not a signed license frame.");
+        }
+
+        try {
+            buffer.position(buffer.position() + MAGIC.length);
+            final byte version = buffer.get();
+            if (version != VERSION_1) {
+                throw new ObjectDeserializationException("The signed license frame version " + version +
+                        " is not supported.");
+            }
+
+            final byte[] keyId = SignedLicenseCodec.readBytes(buffer, buffer.getShort() & 0xFFFF);
+            final String algorithm = new String(SignedLicenseCodec.readBytes(buffer, buffer.get() & 0xFF),
+                    StandardCharsets.US_ASCII);
+            if (!DataSignatureManager.SIGNATURE_ALGORITHM.equals(algorithm)) {
+                throw new AlgorithmNotSupportedException(algorithm);
+            }
+
+            final byte[] licenseContent = SignedLicenseCodec.readBytes(buffer, buffer.getInt());
+            final byte[] signatureContent = SignedLicenseCodec.readBytes(buffer, buffer.getInt());
+
+            return SignedLicense.wrap(licenseContent, signatureContent,
+                    keyId.length == 0 ? null : new String(keyId, StandardCharsets.UTF_8));
+        } catch (final BufferUnderflowException e) {
+            throw new ObjectDeserializationException("The signed license frame is truncated.", e);
+        }
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer, final int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new ObjectDeserializationException("The signed license frame is truncated.");
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private SignedLicenseCodec() {
+        throw new RuntimeException("This class cannot be instantiated.");
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * UsageSink.java from LicenseManager modified Monday, October 19, 2026 19:10:37 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing;
+
+import java.util.List;
+
+/**
+ * This specifies an interface for receiving the feature usage counted by a {@link FeatureMeter}, for example to
+ * persist it for billing. The meter calls the sink periodically from its own thread, never from the threads that use
+ * the features.
+ *
+ * @since 1.0.4
+ */
+public interface UsageSink {
+    /**
+     * Receives the usage counted since the previous call. If this method throws an exception, the meter keeps the
+     * usage and delivers it again with the next flush.
+     *
+     * @param usage The usage per context and feature; only pairs with a non-zero count are included
+     */
+    void record(final List<FeatureUsage> usage);
+}
@@ -0,0 +1,221 @@
+/*
+ * CompactLinkedHashSet.java from LicenseManager modified Monday, October 19, 2026 15:12:08 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing.immutable;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A read-only, insertion-ordered hash set that stores its elements once, in a
+ * plain array, and finds them through an open-addressing table of array
+ * indexes. Sets of up to {@value #MAXIMUM_LINEAR_SIZE} elements, which is what
+ * most licenses carry, have no table at all and are scanned instead, and all
+ * empty sets share one instance. It backs {@link ImmutableLinkedHashSet}, whose
+ * snapshot is this
+ * set's element array, and is never serialized itself: it is written as a
+ * {@link LinkedHashSet} so that the serialized form of the immutable set stays
+ * the same.
+ *
+ * @since 1.0.4
+ */
+final class CompactLinkedHashSet<E> extends AbstractSet<E> implements Serializable {
+    private final static long serialVersionUID = 1L;
+
+    /**
+     * The largest set that is scanned instead of hashed. Scanning this many
+     * elements, whose hash codes are usually cached, is as fast as a probe.
+     */
+    static final int MAXIMUM_LINEAR_SIZE = 8;
+
+    private static final CompactLinkedHashSet<Object> EMPTY = new CompactLinkedHashSet<>(new Object[0], null);
+
+    /**
+     * The elements, without duplicates, in insertion order.
+     */
+    final Object[] elements;
+
+    /**
+     * A power-of-two table, at most half full, holding one plus the index of
+     * each element in {@link #elements} at the slot of its hash code, or zero
+     * for empty slots. Collisions are resolved by linear probing. This is
+     * {@code null} for sets that are scanned.
+     */
+    private final int[] table;
+
+    private CompactLinkedHashSet(final Object[] elements, final int[] table) {
+        this.elements = elements;
+        this.table = table;
+    }
+
+    /**
+     * Copies the collection, dropping duplicate elements and keeping the first
+     * occurrence of each.
+     *
+     * @param collection The collection to copy
+     * @return the compact set.
+     */
+    @SuppressWarnings("unchecked")
+    static <E> CompactLinkedHashSet<E> copyOf(final Collection<? extends E> collection) {
+        final Object[] source = collection.toArray();
+        if (source.length == 0) {
+            return (CompactLinkedHashSet<E>) EMPTY;
+        }
+        return source.length <= MAXIMUM_LINEAR_SIZE ?
+                CompactLinkedHashSet.copyOfSmall(source) : CompactLinkedHashSet.copyOfLarge(source);
+    }
+
+    private static <E> CompactLinkedHashSet<E> copyOfSmall(final Object[] source) {
+        int size = 0;
+        for (final Object element : source) {
+            if (CompactLinkedHashSet.indexOf(source, size, element) < 0) {
+                source[size++] = element;
+            }
+        }
+
+        return new CompactLinkedHashSet<>(size == source.length ? source : Arrays.copyOf(source, size), null);
+    }
+
+    private static <E> CompactLinkedHashSet<E> copyOfLarge(final Object[] source) {
+        final int[] table = new int[CompactLinkedHashSet.tableSize(source.length)];
+        final int mask = table.length - 1;
+
+        int size = 0;
+        for (final Object element : source) {
+            int slot = CompactLinkedHashSet.hash(element) & mask;
+            while (table[slot] != 0 && !Objects.equals(element, source[table[slot] - 1])) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == 0) {
+                source[size] = element;
+                table[slot] = ++size;
+            }
+        }
+
+        return new CompactLinkedHashSet<>(size == source.length ? source : Arrays.copyOf(source, size), table);
+    }
+
+    private static int indexOf(final Object[] elements, final int size, final Object object) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(object, elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int tableSize(final int size) {
+        return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    }
+
+    private static int hash(final Object element) {
+        final int hash = element == null ? 0 : element.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns the index of the element in insertion order.
+     *
+     * @param object The element to find
+     * @return the index of the element, or -1 if this set does not contain it.
+     */
+    int indexOf(final Object object) {
+        if (this.table == null) {
+            return CompactLinkedHashSet.indexOf(this.elements, this.elements.length, object);
+        }
+        final int mask = this.table.length - 1;
+        int slot = CompactLinkedHashSet.hash(object) & mask;
+        int entry;
+        while ((entry = this.table[slot]) != 0) {
+            if (Objects.equals(object, this.elements[entry - 1])) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return this.indexOf(object) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return this.elements.length;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < CompactLinkedHashSet.this.elements.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (this.cursor >= CompactLinkedHashSet.this.elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return (E) CompactLinkedHashSet.this.elements[this.cursor++];
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        return this.elements.clone();
+    }
+
+    @Override
+    public boolean add(final E e) {
+        throw new UnsupportedOperationException("This collection cannot be modified.");
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        throw new UnsupportedOperationException("This collection cannot be modified.");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("This collection cannot be modified.");
+    }
+
+    /**
+     * Writes this set as the {@link LinkedHashSet} that earlier versions
+     * stored. Every reference to this set in one stream is written as the
+     * same {@code LinkedHashSet}.
+     *
+     * @return an equal linked hash set.
+     */
+    @SuppressWarnings("unchecked")
+    private Object writeReplace() {
+        return new LinkedHashSet<>((Collection<E>) Arrays.asList(this.elements));
+    }
+}
@@ -18,14 +18,32 @@
 
 package ro.esolutions.licensing.immutable;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 /**
- * Wraps a collection such that it cannot be modified. There is some overhead
- * associated with this due to verification of hash codes on every call to
- * prevent tampering with via reflection, but this is well worth it if your goal
- * is security and you truly need an unmodifiable collection.
+ * Wraps a collection such that it cannot be modified. All reads, including
+ * equality, containment and the string form, are served from a private array
+ * snapshot taken at construction and never from the wrapped collection, so
+ * elements replaced in the wrapped collection through reflection are not seen.
+ * Every call also verifies in constant time that neither the snapshot nor the
+ * wrapped collection has been replaced or resized through reflection: a seal
+ * derived from their identities and the element count is recorded at
+ * construction and compared on each call. These per-call checks do not look at
+ * the elements themselves, so elements replaced in place through reflection
+ * are only detected where the contents are visited anyway: the full hash code
+ * of the contents is verified again before the collection is compared for
+ * equality, cloned or serialized, so tampered contents are never compared,
+ * copied or persisted.
+ * <p>
+ * Reads take no locks. All state is held in final fields and never changes
+ * after construction, so a collection that has been published to other threads
+ * can be read by all of them at once.
  *
  * @author Nick Williams
  * @version 1.0.0
@@ -41,6 +59,14 @@ public abstract class ImmutableAbstractCollection<E> extends ValidObject
 
     private final int internalHashCode;
 
+    /**
+     * The elements, in iteration order, copied at construction. This array is
+     * never exposed.
+     */
+    final transient Object[] elements;
+
+    private final transient int seal;
+
     /**
      * Constructor that wraps (not copies).
      *
@@ -48,12 +74,32 @@ public abstract class ImmutableAbstractCollection<E> extends ValidObject
      * @throws IllegalArgumentException if collection is null
      */
     protected ImmutableAbstractCollection(final Collection<E> collection) {
+        this(collection, collection == null ? null : collection.toArray());
+    }
+
+    /**
+     * Constructor that wraps (not copies) the collection and uses the given
+     * array, which must hold the elements of the collection in iteration
+     * order, as the snapshot.
+     *
+     * @param collection The collection to decorate, must not be null
+     * @param elements The elements of the collection, never exposed
+     * @throws IllegalArgumentException if collection is null
+     */
+    ImmutableAbstractCollection(final Collection<E> collection, final Object[] elements) {
         if (collection == null) {
             throw new IllegalArgumentException("Parameter collection must not be null.");
         }
         this.internalCollection = collection;
         this.internalSize = this.internalCollection.size();
         this.internalHashCode = this.internalCollection.hashCode();
+        this.elements = elements;
+        this.seal = this.computeSeal();
+    }
+
+    private int computeSeal() {
+        return (31 * System.identityHashCode(this.internalCollection) + System.identityHashCode(this.elements)) *
+                31 + this.elements.length;
     }
 
     /**
@@ -64,97 +110,163 @@ public abstract class ImmutableAbstractCollection<E> extends ValidObject
      */
     @Override
     protected final void checkValidity() {
-        if (this.internalSize != this.internalCollection.size() ||
-                this.internalHashCode != this.internalCollection.hashCode())
+        if (this.internalSize != this.elements.length || this.internalSize != this.internalCollection.size() ||
+                this.seal != this.computeSeal())
             throw new ImmutableModifiedThroughReflectionException();
     }
 
+    /**
+     * Checks the validity of this object like {@link #checkValidity()}, and
+     * also verifies that the snapshot still has the hash code the collection
+     * had at construction, which costs a hash code computation over all
+     * elements.
+     *
+     * @throws ImmutableModifiedThroughReflectionException if the validity check fails.
+     */
+    final void checkContents() {
+        this.checkValidity();
+        int hashCode = this instanceof Set ? 0 : 1;
+        for (final Object element : this.elements) {
+            final int elementHashCode = element == null ? 0 : element.hashCode();
+            hashCode = this instanceof Set ? hashCode + elementHashCode : 31 * hashCode + elementHashCode;
+        }
+        if (hashCode != this.internalHashCode)
+            throw new ImmutableModifiedThroughReflectionException();
+    }
+
+    /**
+     * Verifies the full contents of the collection, which costs a hash code
+     * computation over all elements, before writing it.
+     */
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        this.checkContents();
+        if (this.internalHashCode != this.internalCollection.hashCode() ||
+                !Arrays.equals(this.elements, this.internalCollection.toArray()))
+            throw new ImmutableModifiedThroughReflectionException();
+        stream.defaultWriteObject();
+    }
+
+    /**
+     * Compares the snapshots: lists are equal to lists with the same elements
+     * in the same order, and sets to sets with the same elements. The contents
+     * of both are verified first.
+     */
     @Override
     public final boolean equals(final Object o) {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return o == this || (
-                    o instanceof ImmutableAbstractCollection &&
-                            this.internalCollection.equals(
-                                    ((ImmutableAbstractCollection) o).internalCollection
-                            )
-            );
+        this.checkValidity();
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof ImmutableAbstractCollection)) {
+            return false;
         }
+        final ImmutableAbstractCollection<?> other = (ImmutableAbstractCollection<?>) o;
+        this.checkContents();
+        other.checkContents();
+        if (this instanceof Set || other instanceof Set) {
+            return this instanceof Set && other instanceof Set && this.elements.length == other.elements.length &&
+                    this.containsAll(other.elements);
+        }
+        return this instanceof List == other instanceof List && Arrays.equals(this.elements, other.elements);
     }
 
     @Override
     public final int hashCode() {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return this.internalHashCode;
-        }
+        this.checkValidity();
+        return this.internalHashCode;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public final boolean contains(final Object object) {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            try {
-                return this.internalCollection.contains(object);
-            } catch (final ClassCastException e) {
+        this.checkValidity();
+        return this.indexOfElement(object) >= 0;
+    }
+
+    @Override
+    public final boolean containsAll(final Collection<?> c) {
+        this.checkValidity();
+        return this.containsAll(c.toArray());
+    }
+
+    private boolean containsAll(final Object[] objects) {
+        for (final Object object : objects) {
+            if (this.indexOfElement(object) < 0) {
                 return false;
             }
         }
+        return true;
     }
 
-    @Override
-    public final boolean containsAll(final Collection<?> c) {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return this.internalCollection.containsAll(c);
+    /**
+     * Finds the object in the snapshot. Subclasses with a faster lookup over
+     * the same snapshot override this.
+     *
+     * @param object The object to find
+     * @return the index of the first equal element, or -1 if there is none.
+     */
+    int indexOfElement(final Object object) {
+        for (int i = 0; i < this.elements.length; i++) {
+            if (object == null ? this.elements[i] == null : object.equals(this.elements[i])) {
+                return i;
+            }
         }
+        return -1;
     }
 
     @Override
     public final boolean isEmpty() {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return this.internalCollection.isEmpty();
-        }
+        this.checkValidity();
+        return this.elements.length == 0;
     }
 
     @Override
     public final ImmutableIterator<E> iterator() {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return new ImmutableIterator<>(this.internalCollection.iterator(), this);
-        }
+        this.checkValidity();
+        return new ImmutableIterator<>(this.elements, this);
     }
 
     @Override
     public final int size() {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return this.internalCollection.size();
-        }
+        this.checkValidity();
+        return this.elements.length;
     }
 
     @Override
     public final Object[] toArray() {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return this.internalCollection.toArray();
-        }
+        this.checkValidity();
+        return this.elements.clone();
     }
 
     @Override
     @SuppressWarnings("SuspiciousToArrayCall")
     public final <T> T[] toArray(final T[] prototype) {
-        synchronized (this.internalCollection) {
-            this.checkValidity();
-            return this.internalCollection.toArray(prototype);
+        this.checkValidity();
+        return ImmutableAbstractCollection.copyInto(this.elements, prototype);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] copyInto(final Object[] elements, final T[] prototype) {
+        if (prototype.length < elements.length) {
+            return (T[]) Arrays.copyOf(elements, elements.length, prototype.getClass());
         }
+        System.arraycopy(elements, 0, prototype, 0, elements.length);
+        if (prototype.length > elements.length) {
+            prototype[elements.length] = null;
+        }
+        return prototype;
     }
 
     @Override
     public final String toString() {
-        return this.internalCollection.toString();
+        this.checkValidity();
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < this.elements.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.elements[i] == this ? "(this Collection)" : String.valueOf(this.elements[i]));
+        }
+        return builder.append(']').toString();
     }
 
     @Override
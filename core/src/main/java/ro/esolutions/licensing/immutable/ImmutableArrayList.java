@@ -18,16 +18,17 @@
 
 package ro.esolutions.licensing.immutable;
 
+import java.io.InvalidObjectException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 /**
- * Wraps a list such that it cannot be modified. There is some overhead
- * associated with this due to verification of hash codes on every call to
- * prevent tampering with via reflection, but this is well worth it if your goal
- * is security and you truly need an unmodifiable list.
+ * Wraps a list such that it cannot be modified. Reads are served from the
+ * validated array snapshot described in {@link ImmutableAbstractCollection}, so
+ * they cost the same as on an {@link ArrayList}.
  *
  * @author Nick Williams
  * @version 1.0.0
@@ -54,61 +55,83 @@ public final class ImmutableArrayList<E> extends ImmutableAbstractCollection<E>
     @Override
     @SuppressWarnings({"unchecked", "CloneDoesntCallSuperClone"})
     public final ImmutableArrayList<E> clone() {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            return new ImmutableArrayList<E>((List<E>) this.internalList.clone());
-        }
+        this.checkContents();
+        return new ImmutableArrayList<>(Arrays.asList((E[]) this.elements));
     }
 
+    /**
+     * Returns a sized, ordered and immutable spliterator over the elements,
+     * which validates this list once per bulk traversal.
+     *
+     * @return the spliterator.
+     */
     @Override
+    public final ImmutableSpliterator<E> spliterator() {
+        this.checkValidity();
+        return new ImmutableSpliterator<>(this.elements, this, 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
     public final E get(final int index) {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            return this.internalList.get(index);
+        this.checkValidity();
+        if (index < 0 || index >= this.elements.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " +
+                    this.elements.length);
         }
+        return (E) this.elements[index];
     }
 
     @Override
     public final int indexOf(final Object o) {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            return this.internalList.indexOf(o);
-        }
+        this.checkValidity();
+        return this.indexOfElement(o);
     }
 
     @Override
     public final int lastIndexOf(final Object o) {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            return this.internalList.lastIndexOf(o);
+        this.checkValidity();
+        for (int i = this.elements.length - 1; i >= 0; i--) {
+            if (o == null ? this.elements[i] == null : o.equals(this.elements[i])) {
+                return i;
+            }
         }
+        return -1;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public final ImmutableListIterator<E> listIterator() {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            return new ImmutableListIterator<>(this.internalList.listIterator(), this);
-        }
+        this.checkValidity();
+        return new ImmutableListIterator<>(Arrays.asList((E[]) this.elements).listIterator(), this);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public final ImmutableListIterator<E> listIterator(final int index) {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            return new ImmutableListIterator<>(this.internalList.listIterator(index), this);
-        }
+        this.checkValidity();
+        return new ImmutableListIterator<>(Arrays.asList((E[]) this.elements).listIterator(index), this);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public final ImmutableArrayList<E> subList(final int fromIndex,final int toIndex) {
-        synchronized (this.internalList) {
-            this.checkValidity();
-            final List<E> subList = this.internalList.subList(fromIndex, toIndex);
-            return new ImmutableArrayList<>(subList);
+        this.checkValidity();
+        final List<E> subList = Arrays.asList((E[]) this.elements).subList(fromIndex, toIndex);
+        return new ImmutableArrayList<>(subList);
+    }
+
+    /**
+     * Rebuilds lists read with Java object serialization, whose snapshot is not
+     * stored, through the constructor.
+     *
+     * @return an equal list with its snapshot taken.
+     */
+    private Object readResolve() throws InvalidObjectException {
+        if (this.internalList == null) {
+            throw new InvalidObjectException("The serialized list has no contents.");
         }
+        return new ImmutableArrayList<>(this.internalList);
     }
 
     @Override
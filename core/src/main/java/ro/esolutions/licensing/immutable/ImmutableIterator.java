@@ -19,38 +19,42 @@
 package ro.esolutions.licensing.immutable;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
- * Wraps an iterator such that it cannot be modified.
+ * Iterates over the elements of an immutable collection such that it cannot be modified. Like any iterator, an
+ * instance is meant to be used by one thread at a time; the collection itself can be iterated by many threads at once.
  *
  * @author Nick Williams
  * @version 1.0.0
  * @since 1.0.0
  */
 public final class ImmutableIterator<E> implements Immutable, Iterator<E> {
-    private final Iterator<E> internal;
+    private final Object[] elements;
 
     private final ValidObject validObject;
 
-    ImmutableIterator(final Iterator<E> iterator,final ValidObject validObject) {
-        this.internal = iterator;
+    private int cursor;
+
+    ImmutableIterator(final Object[] elements,final ValidObject validObject) {
+        this.elements = elements;
         this.validObject = validObject;
     }
 
     @Override
     public boolean hasNext() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.hasNext();
-        }
+        this.validObject.checkValidity();
+        return this.cursor < this.elements.length;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public E next() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.next();
+        this.validObject.checkValidity();
+        if (this.cursor >= this.elements.length) {
+            throw new NoSuchElementException();
         }
+        return (E) this.elements[this.cursor++];
     }
 
     @Override
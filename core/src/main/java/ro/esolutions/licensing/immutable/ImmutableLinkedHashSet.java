@@ -18,28 +18,49 @@
 
 package ro.esolutions.licensing.immutable;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
 
 /**
- * Wraps a set such that it cannot be modified. There is some overhead
- * associated with this due to verification of hash codes on every call to
- * prevent tampering with via reflection, but this is well worth it if your goal
- * is security and you truly need an unmodifiable set.
+ * Wraps a set such that it cannot be modified. The elements are stored once, in
+ * a compact insertion-ordered hash table whose element array is the validated
+ * snapshot described in {@link ImmutableAbstractCollection}, so indexed access
+ * and iteration read the array and membership tests and {@link #get(Object)}
+ * take constant time. Small sets are scanned instead of hashed, as described
+ * in {@link CompactLinkedHashSet}.<br>
+ * <br>
+ * The serialized form is unchanged from earlier versions, which wrapped a
+ * {@link LinkedHashSet} and kept a copy of it in an {@link ArrayList}: both are
+ * still written, and sets written by earlier versions can still be read.
  *
  * @author Nick Williams
- * @version 1.5.0
+ * @version 1.6.0
  * @since 1.0.0
  */
 public final class ImmutableLinkedHashSet<E> extends ImmutableAbstractCollection<E>
         implements Set<E>, Serializable, Cloneable {
     private final static long serialVersionUID = 2284350955829958161L;
 
-    private final LinkedHashSet<E> internalSet;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("internalSet", LinkedHashSet.class),
+            new ObjectStreamField("internalList", ArrayList.class)
+    };
 
-    private final ArrayList<E> internalList;
+    private static final ImmutableLinkedHashSet<Object> EMPTY =
+            new ImmutableLinkedHashSet<>(CompactLinkedHashSet.copyOf(Collections.emptySet()));
+
+    private final CompactLinkedHashSet<E> compactSet;
 
     /**
      * Constructor that copies.
@@ -48,19 +69,64 @@ public final class ImmutableLinkedHashSet<E> extends ImmutableAbstractCollection
      * @throws IllegalArgumentException if list is null
      */
     public ImmutableLinkedHashSet(final Set<E> list) {
-        super(new LinkedHashSet<>(list));
+        this(ImmutableLinkedHashSet.compact(list));
+    }
+
+    private ImmutableLinkedHashSet(final CompactLinkedHashSet<E> set) {
+        super(set, set.elements);
+
+        this.compactSet = set;
+    }
+
+    /**
+     * Returns an immutable copy of the set. Unlike the constructor, this
+     * returns one shared instance for all empty sets.
+     *
+     * @param set the set to copy, must not be null
+     * @return the immutable copy.
+     * @throws IllegalArgumentException if set is null
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ImmutableLinkedHashSet<E> copyOf(final Set<E> set) {
+        final CompactLinkedHashSet<E> compactSet = ImmutableLinkedHashSet.compact(set);
+        return compactSet.isEmpty() ? (ImmutableLinkedHashSet<E>) EMPTY : new ImmutableLinkedHashSet<>(compactSet);
+    }
 
-        this.internalSet = (LinkedHashSet<E>) this.internalCollection;
-        this.internalList = new ArrayList<>(list);
+    private static <E> CompactLinkedHashSet<E> compact(final Set<E> set) {
+        if (set == null) {
+            throw new IllegalArgumentException("Parameter collection must not be null.");
+        }
+        return CompactLinkedHashSet.copyOf(set);
     }
 
     @Override
-    @SuppressWarnings({"unchecked", "CloneDoesntCallSuperClone"})
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public final ImmutableLinkedHashSet<E> clone() {
-        synchronized (this.internalSet) {
-            this.checkValidity();
-            return new ImmutableLinkedHashSet<>((Set<E>) this.internalSet.clone());
-        }
+        this.checkContents();
+        return new ImmutableLinkedHashSet<>(this.compactSet);
+    }
+
+    /**
+     * Returns a sized, ordered, distinct and immutable spliterator over the
+     * elements, which validates this set once per bulk traversal.
+     *
+     * @return the spliterator.
+     */
+    @Override
+    public final ImmutableSpliterator<E> spliterator() {
+        this.checkValidity();
+        return new ImmutableSpliterator<>(this.elements, this, Spliterator.DISTINCT);
+    }
+
+    /**
+     * Finds the object through the hash table of the compact set, and confirms
+     * the match against the snapshot.
+     */
+    @Override
+    final int indexOfElement(final Object object) {
+        final int index = this.compactSet.indexOf(object);
+        return index >= 0 && index < this.elements.length && Objects.equals(object, this.elements[index]) ?
+                index : -1;
     }
 
     /**
@@ -69,8 +135,17 @@ public final class ImmutableLinkedHashSet<E> extends ImmutableAbstractCollection
      * @param index The element to retrieve.
      * @return The element requested.
      */
+    @SuppressWarnings("unchecked")
     public E get(final int index) {
-        return index < 0 ? null : this.internalList.get(index);
+        if (index < 0) {
+            return null;
+        }
+        this.checkValidity();
+        if (index >= this.elements.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " +
+                    this.elements.length);
+        }
+        return (E) this.elements[index];
     }
 
     /**
@@ -79,7 +154,43 @@ public final class ImmutableLinkedHashSet<E> extends ImmutableAbstractCollection
      * @param object The element to match.
      * @return The element requested.
      */
+    @SuppressWarnings("unchecked")
     public E get(final E object) {
-        return this.get(this.internalList.indexOf(object));
+        this.checkValidity();
+        final int index = this.indexOfElement(object);
+        return index < 0 ? null : (E) this.elements[index];
+    }
+
+    /**
+     * Writes the set and list fields of earlier versions. The set is the same
+     * {@link LinkedHashSet} already written for the wrapped collection.
+     */
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        final ObjectOutputStream.PutField fields = stream.putFields();
+        fields.put("internalSet", this.compactSet);
+        fields.put("internalList", new ArrayList<>(Arrays.asList(this.elements)));
+        stream.writeFields();
+    }
+
+    /**
+     * Skips the set and list fields; the contents are rebuilt from the wrapped
+     * collection in {@link #readResolve()}.
+     */
+    private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.readFields();
+    }
+
+    /**
+     * Rebuilds sets read with Java object serialization, whose hash table is not
+     * stored, through the constructor.
+     *
+     * @return an equal set with its hash table built.
+     */
+    @SuppressWarnings("unchecked")
+    private Object readResolve() throws InvalidObjectException {
+        if (!(this.internalCollection instanceof Set)) {
+            throw new InvalidObjectException("The serialized set has no contents.");
+        }
+        return ImmutableLinkedHashSet.copyOf((Set<E>) this.internalCollection);
     }
 }
@@ -39,50 +39,38 @@ public final class ImmutableListIterator<E> implements Immutable, ListIterator<E
 
     @Override
     public boolean hasNext() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.hasNext();
-        }
+        this.validObject.checkValidity();
+        return this.internal.hasNext();
     }
 
     @Override
     public boolean hasPrevious() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.hasPrevious();
-        }
+        this.validObject.checkValidity();
+        return this.internal.hasPrevious();
     }
 
     @Override
     public E next() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.next();
-        }
+        this.validObject.checkValidity();
+        return this.internal.next();
     }
 
     @Override
     public int nextIndex() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.nextIndex();
-        }
+        this.validObject.checkValidity();
+        return this.internal.nextIndex();
     }
 
     @Override
     public E previous() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.previous();
-        }
+        this.validObject.checkValidity();
+        return this.internal.previous();
     }
 
     @Override
     public int previousIndex() {
-        synchronized (this.validObject) {
-            this.validObject.checkValidity();
-            return this.internal.previousIndex();
-        }
+        this.validObject.checkValidity();
+        return this.internal.previousIndex();
     }
 
     @Override
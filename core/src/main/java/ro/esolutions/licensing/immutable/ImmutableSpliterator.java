@@ -0,0 +1,110 @@
+/*
+ * ImmutableSpliterator.java from LicenseManager modified Monday, October 19, 2026 16:41:27 EEST (+0300).
+ *
+ * Copyright 2010-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ro.esolutions.licensing.immutable;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits and traverses the elements of an immutable collection, straight from
+ * its validated array snapshot. The collection is validated once when a bulk
+ * traversal starts rather than once per element, and the spliterator reports
+ * {@link #SIZED}, {@link #SUBSIZED}, {@link #ORDERED} and {@link #IMMUTABLE},
+ * so streams over the collection know its size and parallel streams can split
+ * it evenly.
+ *
+ * @since 1.0.4
+ */
+public final class ImmutableSpliterator<E> implements Immutable, Spliterator<E> {
+    private final Object[] elements;
+
+    private final ValidObject validObject;
+
+    private final int characteristics;
+
+    private int index;
+
+    private final int fence;
+
+    ImmutableSpliterator(final Object[] elements, final ValidObject validObject, final int characteristics) {
+        this(elements, validObject, 0, elements.length,
+                characteristics | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED |
+                        Spliterator.IMMUTABLE);
+    }
+
+    private ImmutableSpliterator(final Object[] elements, final ValidObject validObject, final int index,
+                                 final int fence, final int characteristics) {
+        this.elements = elements;
+        this.validObject = validObject;
+        this.index = index;
+        this.fence = fence;
+        this.characteristics = characteristics;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(final Consumer<? super E> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        this.validObject.checkValidity();
+        if (this.index >= this.fence) {
+            return false;
+        }
+        action.accept((E) this.elements[this.index++]);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(final Consumer<? super E> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        this.validObject.checkValidity();
+        final Object[] elements = this.elements;
+        final int fence = this.fence;
+        int i = this.index;
+        this.index = fence;
+        for (; i < fence; i++) {
+            action.accept((E) elements[i]);
+        }
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        final int low = this.index;
+        final int middle = (low + this.fence) >>> 1;
+        if (low >= middle) {
+            return null;
+        }
+        this.index = middle;
+        return new ImmutableSpliterator<>(this.elements, this.validObject, low, middle, this.characteristics);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.fence - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return this.characteristics;
+    }
+}